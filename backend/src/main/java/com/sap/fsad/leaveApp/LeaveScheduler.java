@@ -2,6 +2,7 @@ package com.sap.fsad.leaveApp;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.core.Ordered;
 import org.springframework.retry.annotation.EnableRetry;
 
 import io.github.cdimascio.dotenv.Dotenv;
@@ -9,7 +10,8 @@ import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication(scanBasePackages = "com.sap.fsad.leaveApp")
 @EnableScheduling
-@EnableRetry
+// Retry advice sits outside the transaction advice, so each attempt gets a fresh transaction
+@EnableRetry(order = Ordered.LOWEST_PRECEDENCE - 1)
 public class LeaveScheduler {
     public static void main(String[] args) {
         Dotenv dotenv = Dotenv.load();
@@ -0,0 +1,164 @@
+package com.sap.fsad.leaveApp.config;
+
+import com.sap.fsad.leaveApp.service.EmailDeliveryMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+@EnableAsync
+public class AsyncConfig {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    @Value("${app.email.executor.core-pool-size:2}")
+    private int emailCorePoolSize;
+
+    @Value("${app.email.executor.max-pool-size:4}")
+    private int emailMaxPoolSize;
+
+    @Value("${app.email.executor.queue-capacity:500}")
+    private int emailQueueCapacity;
+
+    @Value("${app.email.executor.rejection-policy:caller-runs}")
+    private String emailRejectionPolicy;
+
+    @Value("${app.email.executor.await-termination-seconds:30}")
+    private int emailAwaitTerminationSeconds;
+
+    /**
+     * Bounded executor on which the email queue relay talks to SMTP, so mail
+     * server latency never reaches a request or transaction. Its tasks only
+     * send rows already stored in the email queue. When the queue is full
+     * the configured policy applies: "caller-runs" sends on the relay's own
+     * thread, "drop" leaves the row in the email queue until its lease runs
+     * out and the relay claims it again.
+     */
+    @Bean(name = "emailExecutor")
+    ThreadPoolTaskExecutor emailExecutor(EmailDeliveryMetrics emailDeliveryMetrics) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(emailCorePoolSize);
+        executor.setMaxPoolSize(emailMaxPoolSize);
+        executor.setQueueCapacity(emailQueueCapacity);
+        executor.setThreadNamePrefix("email-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(emailAwaitTerminationSeconds);
+
+        boolean callerRuns = !"drop".equalsIgnoreCase(emailRejectionPolicy);
+        executor.setRejectedExecutionHandler((task, pool) -> {
+            emailDeliveryMetrics.recordRejected();
+            if (callerRuns && !pool.isShutdown()) {
+                task.run();
+            } else {
+                logger.warn("Email executor is full, leaving message for the next poll");
+            }
+        });
+        return executor;
+    }
+
+    /**
+     * Threads that write streamed report downloads to the client. Requests
+     * beyond the queue are rejected rather than piling up open result streams.
+     */
+    @Bean(name = "reportStreamExecutor")
+    ThreadPoolTaskExecutor reportStreamExecutor(
+            @Value("${app.report.stream-pool-size:4}") int poolSize,
+            @Value("${app.report.stream-queue-capacity:20}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("report-stream-");
+        return executor;
+    }
+
+    /**
+     * Workers that render background report jobs to disk. The pool is kept
+     * small so exports cannot take over the database connection pool, and
+     * submissions beyond the queue are rejected.
+     */
+    @Bean(name = "reportJobExecutor")
+    ThreadPoolTaskExecutor reportJobExecutor(
+            @Value("${app.report.jobs.pool-size:2}") int poolSize,
+            @Value("${app.report.jobs.queue-capacity:20}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("report-job-");
+        return executor;
+    }
+
+    /**
+     * Workers for the annual leave credit run, one per user id partition
+     */
+    @Bean(name = "leaveCreditExecutor")
+    ThreadPoolTaskExecutor leaveCreditExecutor(@Value("${app.leave-credit.partitions:1}") int partitions) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(Math.max(1, partitions));
+        executor.setMaxPoolSize(Math.max(1, partitions));
+        executor.setThreadNamePrefix("leave-credit-");
+        // Interrupted partitions resume from their checkpoint on the next start
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        return executor;
+    }
+
+    /**
+     * Single worker that drains the outbox after commit. One queued drain is
+     * enough to pick up every pending row, so extra triggers are discarded.
+     */
+    @Bean(name = "outboxExecutor")
+    ThreadPoolTaskExecutor outboxExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(1);
+        executor.setThreadNamePrefix("outbox-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.DiscardPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(emailAwaitTerminationSeconds);
+        return executor;
+    }
+
+    /**
+     * Workers that push new notifications to open streams, so a stalled
+     * client never holds up the transaction that created the notification.
+     * Events beyond the queue are dropped; the client catches up from its
+     * Last-Event-ID when it reconnects.
+     */
+    @Bean(name = "notificationStreamExecutor")
+    ThreadPoolTaskExecutor notificationStreamExecutor(
+            @Value("${app.notifications.stream.send-pool-size:2}") int poolSize,
+            @Value("${app.notifications.stream.send-queue-capacity:1000}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("notification-stream-");
+        executor.setRejectedExecutionHandler((task, pool) ->
+                logger.warn("Notification stream queue is full, dropping event"));
+        return executor;
+    }
+
+    /**
+     * Single worker that drains the email queue after commit. One queued
+     * drain is enough to pick up every due row, so extra triggers are
+     * discarded instead of crowding out sends on the email executor.
+     */
+    @Bean(name = "emailRelayExecutor")
+    ThreadPoolTaskExecutor emailRelayExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(1);
+        executor.setThreadNamePrefix("email-relay-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.DiscardPolicy());
+        return executor;
+    }
+}
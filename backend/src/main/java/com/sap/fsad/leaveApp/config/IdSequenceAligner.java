@@ -0,0 +1,51 @@
+package com.sap.fsad.leaveApp.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Moves the id sequences of the hot tables past the ids already in use.
+ * These tables used to take ids from AUTO_INCREMENT; the pooled sequences
+ * that replaced them so inserts can be batched start at 1 when first
+ * created. Runs once at startup, before the web server accepts requests.
+ */
+@Component
+public class IdSequenceAligner implements SmartInitializingSingleton {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    // Must match the allocationSize of the @SequenceGenerator mappings
+    private static final int ALLOCATION_SIZE = 50;
+
+    // Table -> sequence table that feeds its ids
+    private static final Map<String, String> SEQUENCES = Map.of(
+            "users", "users_seq",
+            "leave_applications", "leave_applications_seq",
+            "leave_balances", "leave_balances_seq",
+            "notifications", "notifications_seq",
+            "audit_logs", "audit_logs_seq",
+            "outbox_events", "outbox_events_seq");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        SEQUENCES.forEach((table, sequence) -> {
+            try {
+                // A pooled sequence hands out (next_val - allocation, next_val], so keep that whole block above max(id)
+                jdbcTemplate.update("UPDATE " + sequence + " SET next_val = GREATEST(next_val, "
+                        + "(SELECT COALESCE(MAX(id), 0) FROM " + table + ") + " + (ALLOCATION_SIZE + 1) + ")");
+            } catch (DataAccessException e) {
+                logger.warn("Could not align id sequence {} with table {}: {}", sequence, table, e.getMessage());
+            }
+        });
+    }
+}
@@ -0,0 +1,39 @@
+package com.sap.fsad.leaveApp.config;
+
+import com.sap.fsad.leaveApp.model.enums.NotificationType;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * How long read notifications are kept, per notification type
+ */
+@Component
+@ConfigurationProperties(prefix = "app.notifications.retention")
+@Data
+public class NotificationRetentionProperties {
+
+    private boolean enabled = true;
+
+    // Copy expired rows to notifications_archive before deleting them
+    private boolean archive = true;
+
+    // Rows archived and deleted per transaction
+    private int batchSize = 500;
+
+    // Pause between batches so other writers get the table
+    private long batchPauseMs = 50;
+
+    // TTL for types without an entry in ttl
+    private Duration defaultTtl = Duration.ofDays(180);
+
+    private Map<NotificationType, Duration> ttl = new EnumMap<>(NotificationType.class);
+
+    public Duration getTtl(NotificationType type) {
+        return ttl.getOrDefault(type, defaultTtl);
+    }
+}
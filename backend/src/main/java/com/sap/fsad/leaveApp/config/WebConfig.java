@@ -1,14 +1,55 @@
 package com.sap.fsad.leaveApp.config;
 
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewInterceptor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
 @EnableJpaAuditing
 public class WebConfig implements WebMvcConfigurer {
 
+    @Autowired
+    @Qualifier("reportStreamExecutor")
+    private AsyncTaskExecutor reportStreamExecutor;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Value("${app.report.stream-timeout-ms:600000}")
+    private long streamTimeoutMs;
+
+    /**
+     * Streamed report downloads run on a bounded pool of their own and may
+     * take longer than a regular request
+     */
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(reportStreamExecutor);
+        configurer.setDefaultTimeout(streamTimeoutMs);
+    }
+
+    /**
+     * Open session in view for every request except the notification stream.
+     * An async request keeps its view EntityManager, and the connection it
+     * holds, until the request completes, which for the stream is up to its
+     * timeout.
+     */
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        OpenEntityManagerInViewInterceptor interceptor = new OpenEntityManagerInViewInterceptor();
+        interceptor.setEntityManagerFactory(entityManagerFactory);
+        registry.addWebRequestInterceptor(interceptor).excludePathPatterns("/api/notifications/stream");
+    }
+
     @Override
     public void addCorsMappings(CorsRegistry registry) {
         registry.addMapping("/**")
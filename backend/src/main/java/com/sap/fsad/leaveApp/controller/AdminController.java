@@ -4,11 +4,18 @@ import com.sap.fsad.leaveApp.dto.request.LeavePolicyRequest;
 import com.sap.fsad.leaveApp.dto.request.UserUpdateRequest;
 import com.sap.fsad.leaveApp.dto.response.ApiResponse;
 import com.sap.fsad.leaveApp.dto.response.DashboardStatsResponse;
+import com.sap.fsad.leaveApp.dto.response.EmailMetricsResponse;
+import com.sap.fsad.leaveApp.dto.response.NotificationRetentionRunResponse;
+import com.sap.fsad.leaveApp.dto.response.QueuedEmailResponse;
 import com.sap.fsad.leaveApp.dto.response.UserResponse;
 import com.sap.fsad.leaveApp.model.LeavePolicy;
 import com.sap.fsad.leaveApp.model.enums.LeaveType;
 import com.sap.fsad.leaveApp.service.AdminService;
+import com.sap.fsad.leaveApp.service.EmailDeliveryMetrics;
+import com.sap.fsad.leaveApp.service.EmailQueueService;
 import com.sap.fsad.leaveApp.service.LeaveCreditService;
+import com.sap.fsad.leaveApp.service.LeaveUsageAggregator;
+import com.sap.fsad.leaveApp.service.NotificationRetentionService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -33,6 +40,18 @@ public class AdminController {
     @Autowired
     private LeaveCreditService leaveCreditService;
 
+    @Autowired
+    private EmailDeliveryMetrics emailDeliveryMetrics;
+
+    @Autowired
+    private LeaveUsageAggregator leaveUsageAggregator;
+
+    @Autowired
+    private NotificationRetentionService notificationRetentionService;
+
+    @Autowired
+    private EmailQueueService emailQueueService;
+
     @GetMapping("/dashboard-stats")
     @Operation(summary = "Get admin dashboard statistics")
     public ResponseEntity<DashboardStatsResponse> getDashboardStats() {
@@ -102,4 +121,49 @@ public class AdminController {
         List<ApiResponse> responses = leaveCreditService.creditSpecialLeave(userIds, leaveType, amount, reason);
         return ResponseEntity.ok(responses);
     }
-}
\ No newline at end of file
+
+    @PostMapping("/leave-usage-aggregates/rebuild")
+    @Operation(summary = "Rebuild the leave usage aggregates from the leave applications")
+    public ResponseEntity<ApiResponse> rebuildLeaveUsageAggregates() {
+        return ResponseEntity.ok(leaveUsageAggregator.rebuild());
+    }
+
+    @PostMapping("/notification-retention/run")
+    @Operation(summary = "Purge expired read notifications now")
+    public ResponseEntity<NotificationRetentionRunResponse> runNotificationRetention() {
+        return ResponseEntity.ok(notificationRetentionService.purgeExpiredNotifications());
+    }
+
+    @GetMapping("/notification-retention/last-run")
+    @Operation(summary = "Get statistics of the last notification retention run")
+    public ResponseEntity<NotificationRetentionRunResponse> getLastNotificationRetentionRun() {
+        NotificationRetentionRunResponse lastRun = notificationRetentionService.getLastRun();
+        return lastRun != null ? ResponseEntity.ok(lastRun) : ResponseEntity.noContent().build();
+    }
+
+    @GetMapping("/email-queue/dead")
+    @Operation(summary = "List emails that failed every delivery attempt")
+    public ResponseEntity<List<QueuedEmailResponse>> getDeadEmails(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(emailQueueService.getDeadEmails(page, size));
+    }
+
+    @PostMapping("/email-queue/dead/{id}/replay")
+    @Operation(summary = "Queue a dead email for delivery again")
+    public ResponseEntity<ApiResponse> replayDeadEmail(@PathVariable Long id) {
+        return ResponseEntity.ok(emailQueueService.replay(id));
+    }
+
+    @PostMapping("/email-queue/dead/replay")
+    @Operation(summary = "Queue every dead email for delivery again")
+    public ResponseEntity<ApiResponse> replayAllDeadEmails() {
+        return ResponseEntity.ok(emailQueueService.replayAll());
+    }
+
+    @GetMapping("/email-metrics")
+    @Operation(summary = "Get email delivery queue and latency metrics")
+    public ResponseEntity<EmailMetricsResponse> getEmailMetrics() {
+        return ResponseEntity.ok(emailDeliveryMetrics.snapshot());
+    }
+}
@@ -1,14 +1,22 @@
 package com.sap.fsad.leaveApp.controller;
 
 import com.sap.fsad.leaveApp.dto.response.ApiResponse;
+import com.sap.fsad.leaveApp.dto.response.NotificationPageResponse;
+import com.sap.fsad.leaveApp.dto.response.StreamTicketResponse;
 import com.sap.fsad.leaveApp.model.Notification;
+import com.sap.fsad.leaveApp.security.CustomUserDetails;
+import com.sap.fsad.leaveApp.security.StreamTicketStore;
 import com.sap.fsad.leaveApp.service.NotificationService;
+import com.sap.fsad.leaveApp.service.NotificationStreamRegistry;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 
@@ -20,6 +28,12 @@ public class NotificationController {
     @Autowired
     private NotificationService notificationService;
 
+    @Autowired
+    private NotificationStreamRegistry notificationStreamRegistry;
+
+    @Autowired
+    private StreamTicketStore streamTicketStore;
+
     @GetMapping
     @Operation(summary = "Get current user's notifications")
     @SecurityRequirement(name = "bearerAuth")
@@ -28,6 +42,35 @@ public class NotificationController {
         return ResponseEntity.ok(notifications);
     }
 
+    @GetMapping("/feed")
+    @Operation(summary = "Get a page of the current user's notifications, newest first")
+    @SecurityRequirement(name = "bearerAuth")
+    public ResponseEntity<NotificationPageResponse> getCurrentUserNotificationFeed(
+            @RequestParam(required = false) Long before,
+            @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(notificationService.getCurrentUserNotificationFeed(before, limit));
+    }
+
+    @PostMapping("/stream-ticket")
+    @Operation(summary = "Get a short-lived, single-use ticket for opening the notification stream")
+    @SecurityRequirement(name = "bearerAuth")
+    public ResponseEntity<StreamTicketResponse> createStreamTicket(
+            @AuthenticationPrincipal CustomUserDetails userDetails) {
+        return ResponseEntity.ok(streamTicketStore.issue(userDetails));
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream new notifications as Server-Sent Events, authenticated by the bearer token or a stream ticket")
+    @SecurityRequirement(name = "bearerAuth")
+    public SseEmitter streamNotifications(
+            @AuthenticationPrincipal CustomUserDetails userDetails,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventIdHeader,
+            @RequestParam(value = "lastEventId", required = false) String lastEventIdParam) {
+        // Tickets are single-use, so browsers reconnect with a new EventSource and pass their position as a parameter
+        String lastEventId = lastEventIdHeader != null ? lastEventIdHeader : lastEventIdParam;
+        return notificationStreamRegistry.register(userDetails.getId(), lastEventId);
+    }
+
     @GetMapping("/unread")
     @Operation(summary = "Get current user's unread notifications")
     @SecurityRequirement(name = "bearerAuth")
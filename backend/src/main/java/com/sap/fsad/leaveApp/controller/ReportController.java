@@ -1,27 +1,73 @@
 package com.sap.fsad.leaveApp.controller;
 
+import com.sap.fsad.leaveApp.dto.request.ReportJobRequest;
+import com.sap.fsad.leaveApp.dto.response.LeaveUsageAggregateResponse;
+import com.sap.fsad.leaveApp.dto.response.ReportJobResponse;
 import com.sap.fsad.leaveApp.model.LeaveApplication;
+import com.sap.fsad.leaveApp.model.enums.LeaveType;
+import com.sap.fsad.leaveApp.model.enums.ReportFormat;
 import org.springframework.http.MediaType;
 import com.sap.fsad.leaveApp.model.Holiday;
+import com.sap.fsad.leaveApp.service.LeaveUsageAggregator;
+import com.sap.fsad.leaveApp.service.ReportJobService;
 import com.sap.fsad.leaveApp.service.ReportService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/reports")
 @Tag(name = "Reports", description = "Endpoints for generating and exporting reports")
 public class ReportController {
 
+    private static final int GZIP_BUFFER_SIZE = 16 * 1024;
+
+    // Incremental exports stop at this time; the next pull should start from it
+    private static final String EXPORT_WATERMARK = "X-Export-Watermark";
+
+    private static final String WINDOW_NOTE = "Rows are selected by updatedAt in [since, until). until defaults to, "
+            + "and is capped at, a watermark that lags the current time, so late committing changes are not "
+            + "missed. Pass the X-Export-Watermark response header as since on the next pull.";
+
+    // Request attributes of Tomcat's sendfile support
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
     @Autowired
     private ReportService reportService;
 
+    @Autowired
+    private ReportJobService reportJobService;
+
+    @Autowired
+    private LeaveUsageAggregator leaveUsageAggregator;
+
     @GetMapping("/leave-usage")
     @Operation(summary = "Get leave usage report")
     @SecurityRequirement(name = "bearerAuth")
@@ -30,6 +76,18 @@ public class ReportController {
         return ResponseEntity.ok(report);
     }
 
+    @GetMapping("/leave-usage/aggregates")
+    @Operation(summary = "Get monthly leave usage by department and leave type")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    @SecurityRequirement(name = "bearerAuth")
+    public ResponseEntity<List<LeaveUsageAggregateResponse>> getLeaveUsageAggregates(
+            @RequestParam int fromYear,
+            @RequestParam int toYear,
+            @RequestParam(required = false) String department,
+            @RequestParam(required = false) LeaveType leaveType) {
+        return ResponseEntity.ok(leaveUsageAggregator.getUsage(fromYear, toYear, department, leaveType));
+    }
+
     @GetMapping("/pending-approvals")
     @Operation(summary = "Get pending approvals report")
     @SecurityRequirement(name = "bearerAuth")
@@ -49,26 +107,140 @@ public class ReportController {
     @GetMapping("/leave-usage/export/excel")
     @SecurityRequirement(name = "bearerAuth")
     @Operation(summary = "Export leave usage report to Excel")
-    public ResponseEntity<byte[]> exportLeaveUsageToExcel() throws Exception {
-        List<LeaveApplication> report = reportService.getLeaveUsageReport();
-        byte[] excelData = reportService.exportLeaveUsageToExcel(report);
+    public ResponseEntity<StreamingResponseBody> exportLeaveUsageToExcel(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String department) {
+        StreamingResponseBody body = out -> reportService.writeLeaveUsageExcel(out, from, to, department);
 
         return ResponseEntity.ok()
                 .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=leave-usage.xlsx")
                 .contentType(MediaType.APPLICATION_OCTET_STREAM)
-                .body(excelData);
+                .body(body);
     }
 
     @GetMapping("/leave-usage/export/pdf")
     @Operation(summary = "Export leave usage report to PDF")
     @SecurityRequirement(name = "bearerAuth")
-    public ResponseEntity<byte[]> exportLeaveUsageToPDF() throws Exception {
-        List<LeaveApplication> report = reportService.getLeaveUsageReport();
-        byte[] pdfData = reportService.exportLeaveUsageToPDF(report);
+    public ResponseEntity<StreamingResponseBody> exportLeaveUsageToPDF(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String department) {
+        StreamingResponseBody body = out -> reportService.writeLeaveUsagePdf(out, from, to, department);
 
         return ResponseEntity.ok()
                 .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=leave-usage.pdf")
                 .contentType(MediaType.APPLICATION_PDF)
-                .body(pdfData);
+                .body(body);
+    }
+
+    @GetMapping("/leave-usage/export/csv")
+    @Operation(summary = "Export leave usage rows updated in a time window to CSV", description = WINDOW_NOTE)
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    @SecurityRequirement(name = "bearerAuth")
+    public ResponseEntity<StreamingResponseBody> exportLeaveUsageToCsv(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime until,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        LocalDateTime watermark = reportService.exportWatermark(until);
+        return exportStream(out -> reportService.writeLeaveUsageCsv(out, since, watermark), watermark,
+                "leave-usage.csv", new MediaType("text", "csv", StandardCharsets.UTF_8), acceptEncoding);
+    }
+
+    @GetMapping("/leave-usage/export/ndjson")
+    @Operation(summary = "Export leave usage rows updated in a time window to newline delimited JSON",
+            description = WINDOW_NOTE)
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    @SecurityRequirement(name = "bearerAuth")
+    public ResponseEntity<StreamingResponseBody> exportLeaveUsageToNdjson(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime until,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        LocalDateTime watermark = reportService.exportWatermark(until);
+        return exportStream(out -> reportService.writeLeaveUsageNdjson(out, since, watermark), watermark,
+                "leave-usage.ndjson", MediaType.APPLICATION_NDJSON, acceptEncoding);
+    }
+
+    @PostMapping("/jobs")
+    @Operation(summary = "Submit a report to be rendered in the background")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    @SecurityRequirement(name = "bearerAuth")
+    public ResponseEntity<ReportJobResponse> submitReportJob(@Valid @RequestBody ReportJobRequest request) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(reportJobService.submit(request));
+    }
+
+    @GetMapping("/jobs/{id}")
+    @Operation(summary = "Get the status of a report job")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    @SecurityRequirement(name = "bearerAuth")
+    public ResponseEntity<ReportJobResponse> getReportJob(@PathVariable String id) {
+        return ResponseEntity.ok(reportJobService.getJob(id));
+    }
+
+    @GetMapping("/jobs/{id}/download")
+    @Operation(summary = "Download the result of a completed report job")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    @SecurityRequirement(name = "bearerAuth")
+    public void downloadReportJob(@PathVariable String id, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        Path file = reportJobService.getResultFile(id);
+        ReportFormat format = reportJobService.getFormat(id);
+        long size = Files.size(file);
+
+        response.setContentType(contentType(format).toString());
+        response.setContentLengthLong(size);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=leave-usage." + ReportJobService.extension(format));
+
+        // Let Tomcat send the file with sendfile when the connector supports it
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, 0L);
+            request.setAttribute(SENDFILE_END, size);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(response.getOutputStream());
+            long position = 0;
+            while (position < size) {
+                position += channel.transferTo(position, size - position, target);
+            }
+        }
+    }
+
+    private static MediaType contentType(ReportFormat format) {
+        return switch (format) {
+            case PDF -> MediaType.APPLICATION_PDF;
+            case CSV -> new MediaType("text", "csv", StandardCharsets.UTF_8);
+            case NDJSON -> MediaType.APPLICATION_NDJSON;
+            default -> MediaType.APPLICATION_OCTET_STREAM;
+        };
+    }
+
+    /**
+     * Wrap an incremental export in a streamed attachment, gzip compressed
+     * when the client accepts it. The watermark header is the until the
+     * export actually used, and the since for the next pull.
+     */
+    private ResponseEntity<StreamingResponseBody> exportStream(StreamingResponseBody export, LocalDateTime watermark,
+            String filename, MediaType contentType, String acceptEncoding) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename)
+                .header(EXPORT_WATERMARK, watermark.toString())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .contentType(contentType);
+
+        if (acceptEncoding == null || !acceptEncoding.toLowerCase().contains("gzip")) {
+            return response.body(export);
+        }
+
+        StreamingResponseBody body = out -> {
+            GZIPOutputStream gzip = new GZIPOutputStream(out, GZIP_BUFFER_SIZE);
+            export.writeTo(gzip);
+            // Write the trailer without closing the response stream
+            gzip.finish();
+        };
+        return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(body);
     }
-}
\ No newline at end of file
+}
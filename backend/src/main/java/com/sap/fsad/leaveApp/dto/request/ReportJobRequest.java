@@ -0,0 +1,34 @@
+package com.sap.fsad.leaveApp.dto.request;
+
+import com.sap.fsad.leaveApp.model.enums.ReportFormat;
+import com.sap.fsad.leaveApp.model.enums.ReportType;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReportJobRequest {
+    @NotNull
+    private ReportType type;
+
+    @NotNull
+    private ReportFormat format;
+
+    // Leave period filters, used by the EXCEL and PDF formats
+    private LocalDate from;
+    private LocalDate to;
+
+    @Size(max = 50)
+    private String department;
+
+    // updatedAt window, used by the CSV and NDJSON formats
+    private LocalDateTime since;
+    private LocalDateTime until;
+}
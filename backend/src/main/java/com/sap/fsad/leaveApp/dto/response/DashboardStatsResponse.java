@@ -1,11 +1,11 @@
 package com.sap.fsad.leaveApp.dto.response;
 
-import com.sap.fsad.leaveApp.model.LeaveApplication;
 import com.sap.fsad.leaveApp.model.enums.UserRole;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 
@@ -17,5 +17,6 @@ public class DashboardStatsResponse {
     private long activeUsers; // Number of active users
     private long pendingLeaves; // Total number of pending leave applications
     private Map<UserRole, Long> roleDistribution; // Distribution of users by role
-    private List<LeaveApplication> recentLeaveApplications; // List of recent leave applications
+    private List<LeaveUsageRow> recentLeaveApplications; // List of recent leave applications
+    private LocalDateTime generatedAt; // When these figures were computed
 }
\ No newline at end of file
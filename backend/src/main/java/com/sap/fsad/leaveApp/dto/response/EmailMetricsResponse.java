@@ -0,0 +1,18 @@
+package com.sap.fsad.leaveApp.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class EmailMetricsResponse {
+    private int queueDepth; // Messages waiting for a delivery thread
+    private int activeWorkers; // Delivery threads currently talking to SMTP
+    private long sent;
+    private long failed;
+    private long rejected; // Messages that hit a full queue
+    private long averageLatencyMs;
+    private long maxLatencyMs;
+}
@@ -14,6 +14,7 @@ public class LeaveBalanceResponse {
     private LeaveType leaveType;
     private Float balance;
     private Float used;
+    private Float reserved; // Held by pending applications
     private Integer year;
     private String leaveTypeName;
 }
\ No newline at end of file
@@ -0,0 +1,20 @@
+package com.sap.fsad.leaveApp.dto.response;
+
+import com.sap.fsad.leaveApp.model.enums.LeaveType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class LeaveUsageAggregateResponse {
+    private String department;
+    private LeaveType leaveType;
+    private int year;
+    private int month;
+    private long pendingCount;
+    private long pendingDays;
+    private long approvedCount;
+    private long approvedDays;
+}
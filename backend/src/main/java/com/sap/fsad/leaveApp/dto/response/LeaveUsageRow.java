@@ -0,0 +1,31 @@
+package com.sap.fsad.leaveApp.dto.response;
+
+import com.sap.fsad.leaveApp.model.enums.LeaveStatus;
+import com.sap.fsad.leaveApp.model.enums.LeaveType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Flat leave usage row read straight from a projection query, so exports
+ * never hydrate LeaveApplication or User entities.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class LeaveUsageRow {
+    private Long id;
+    private Long userId;
+    private String employeeName;
+    private String department;
+    private LeaveType leaveType;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private Integer numberOfDays;
+    private LeaveStatus status;
+    private LocalDateTime appliedOn;
+    private LocalDateTime updatedAt;
+}
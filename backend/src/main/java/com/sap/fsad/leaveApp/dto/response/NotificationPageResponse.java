@@ -0,0 +1,16 @@
+package com.sap.fsad.leaveApp.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class NotificationPageResponse {
+    private List<NotificationResponse> notifications;
+    private boolean hasMore;
+    private Long nextBefore; // Pass as "before" to get the next page; null on the last page
+}
@@ -0,0 +1,21 @@
+package com.sap.fsad.leaveApp.dto.response;
+
+import com.sap.fsad.leaveApp.model.enums.NotificationType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class NotificationResponse {
+    private Long id;
+    private NotificationType type;
+    private String title;
+    private String message;
+    private Long relatedEntityId;
+    private Boolean isRead;
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,21 @@
+package com.sap.fsad.leaveApp.dto.response;
+
+import com.sap.fsad.leaveApp.model.enums.NotificationType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class NotificationRetentionRunResponse {
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private boolean archived; // Whether purged rows were copied to notifications_archive
+    private long totalPurged;
+    private Map<NotificationType, Long> purgedByType;
+    private String error; // Set when the run stopped early
+}
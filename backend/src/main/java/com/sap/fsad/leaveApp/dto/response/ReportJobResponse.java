@@ -0,0 +1,26 @@
+package com.sap.fsad.leaveApp.dto.response;
+
+import com.sap.fsad.leaveApp.model.enums.ReportFormat;
+import com.sap.fsad.leaveApp.model.enums.ReportJobStatus;
+import com.sap.fsad.leaveApp.model.enums.ReportType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReportJobResponse {
+    private String id;
+    private ReportType type;
+    private ReportFormat format;
+    private ReportJobStatus status;
+    private boolean cached; // Served from an earlier job with the same spec
+    private LocalDateTime submittedAt;
+    private LocalDateTime completedAt;
+    private Long sizeBytes;
+    private String error;
+    private String downloadUrl;
+}
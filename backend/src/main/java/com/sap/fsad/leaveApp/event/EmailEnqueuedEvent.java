@@ -0,0 +1,18 @@
+package com.sap.fsad.leaveApp.event;
+
+/**
+ * Published when an email becomes ready to send, so the relay can pick it up
+ * as soon as the surrounding transaction commits instead of waiting for the
+ * next poll.
+ */
+public class EmailEnqueuedEvent {
+    private final Long queuedEmailId;
+
+    public EmailEnqueuedEvent(Long queuedEmailId) {
+        this.queuedEmailId = queuedEmailId;
+    }
+
+    public Long getQueuedEmailId() {
+        return queuedEmailId;
+    }
+}
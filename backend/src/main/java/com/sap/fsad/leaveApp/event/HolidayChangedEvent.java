@@ -0,0 +1,17 @@
+package com.sap.fsad.leaveApp.event;
+
+/**
+ * Published when a holiday is created, updated or deleted, so the in-memory
+ * holiday calendar is rebuilt after the change commits.
+ */
+public class HolidayChangedEvent {
+    private final Long holidayId;
+
+    public HolidayChangedEvent(Long holidayId) {
+        this.holidayId = holidayId;
+    }
+
+    public Long getHolidayId() {
+        return holidayId;
+    }
+}
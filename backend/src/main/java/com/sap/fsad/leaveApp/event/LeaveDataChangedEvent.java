@@ -0,0 +1,24 @@
+package com.sap.fsad.leaveApp.event;
+
+/**
+ * Published when a leave application is created or changes status, or when
+ * user details shown in leave reports change, so derived report data can be
+ * refreshed after the change commits.
+ */
+public class LeaveDataChangedEvent {
+    private final Long userId;
+    private final Long leaveApplicationId; // Null when only user details changed
+
+    public LeaveDataChangedEvent(Long userId, Long leaveApplicationId) {
+        this.userId = userId;
+        this.leaveApplicationId = leaveApplicationId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public Long getLeaveApplicationId() {
+        return leaveApplicationId;
+    }
+}
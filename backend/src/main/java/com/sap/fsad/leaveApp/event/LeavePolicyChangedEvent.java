@@ -0,0 +1,17 @@
+package com.sap.fsad.leaveApp.event;
+
+/**
+ * Published when a leave policy is created, updated, deactivated or deleted,
+ * so the in-memory policy registry is reloaded after the change commits.
+ */
+public class LeavePolicyChangedEvent {
+    private final Long policyId;
+
+    public LeavePolicyChangedEvent(Long policyId) {
+        this.policyId = policyId;
+    }
+
+    public Long getPolicyId() {
+        return policyId;
+    }
+}
@@ -0,0 +1,58 @@
+package com.sap.fsad.leaveApp.event;
+
+import com.sap.fsad.leaveApp.model.enums.NotificationType;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published when a notification is saved. Carries everything a push client
+ * needs, so delivering it after commit costs no query.
+ */
+public class NotificationCreatedEvent {
+    private final Long notificationId;
+    private final Long userId;
+    private final NotificationType type;
+    private final String title;
+    private final String message;
+    private final Long relatedEntityId;
+    private final LocalDateTime createdAt;
+
+    public NotificationCreatedEvent(Long notificationId, Long userId, NotificationType type, String title,
+            String message, Long relatedEntityId, LocalDateTime createdAt) {
+        this.notificationId = notificationId;
+        this.userId = userId;
+        this.type = type;
+        this.title = title;
+        this.message = message;
+        this.relatedEntityId = relatedEntityId;
+        this.createdAt = createdAt;
+    }
+
+    public Long getNotificationId() {
+        return notificationId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public NotificationType getType() {
+        return type;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public Long getRelatedEntityId() {
+        return relatedEntityId;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -0,0 +1,23 @@
+package com.sap.fsad.leaveApp.event;
+
+/**
+ * Published when a user marks notifications as read, with the number that
+ * went from unread to read.
+ */
+public class NotificationsReadEvent {
+    private final Long userId;
+    private final long count;
+
+    public NotificationsReadEvent(Long userId, long count) {
+        this.userId = userId;
+        this.count = count;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public long getCount() {
+        return count;
+    }
+}
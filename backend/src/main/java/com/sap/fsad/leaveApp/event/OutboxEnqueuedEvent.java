@@ -0,0 +1,18 @@
+package com.sap.fsad.leaveApp.event;
+
+/**
+ * Published when a row is added to the outbox, so the relay can pick it up
+ * as soon as the surrounding transaction commits instead of waiting for the
+ * next poll.
+ */
+public class OutboxEnqueuedEvent {
+    private final Long outboxEventId;
+
+    public OutboxEnqueuedEvent(Long outboxEventId) {
+        this.outboxEventId = outboxEventId;
+    }
+
+    public Long getOutboxEventId() {
+        return outboxEventId;
+    }
+}
@@ -0,0 +1,23 @@
+package com.sap.fsad.leaveApp.event;
+
+/**
+ * Published when a user's roles, password or active state change, so tokens
+ * issued before the change stop being accepted.
+ */
+public class UserSecurityChangedEvent {
+    private final Long userId;
+    private final int securityVersion;
+
+    public UserSecurityChangedEvent(Long userId, int securityVersion) {
+        this.userId = userId;
+        this.securityVersion = securityVersion;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public int getSecurityVersion() {
+        return securityVersion;
+    }
+}
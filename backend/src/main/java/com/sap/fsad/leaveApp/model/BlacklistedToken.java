@@ -8,7 +8,7 @@ import lombok.Data;
 import java.util.Date;
 
 @Entity
-@Table(name = "blacklisted_tokens")
+@Table(name = "blacklisted_tokens", indexes = @Index(name = "idx_blacklisted_tokens_created", columnList = "createdAt"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -24,4 +24,7 @@ public class BlacklistedToken {
     @Column(nullable = false)
     private Date expiryDate;
 
+    // Other nodes poll on this to pick up the revocation
+    private Date createdAt;
+
 }
\ No newline at end of file
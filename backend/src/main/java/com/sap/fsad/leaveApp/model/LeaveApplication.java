@@ -18,14 +18,18 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "leave_applications")
+@Table(name = "leave_applications", indexes = {
+        @Index(name = "idx_leave_applications_updated", columnList = "updatedAt, id"),
+        @Index(name = "idx_leave_applications_created", columnList = "createdAt, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @EntityListeners(AuditingEntityListener.class)
 public class LeaveApplication {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "leave_applications_seq")
+    @SequenceGenerator(name = "leave_applications_seq", sequenceName = "leave_applications_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne
@@ -68,6 +72,9 @@ public class LeaveApplication {
 
     private Integer numberOfDays;
 
+    // Days this application holds in its balance; null for applications filed before reservations
+    private Float reservedDays;
+
     @Size(max = 255)
     private String attachmentPath;
 
@@ -80,4 +87,8 @@ public class LeaveApplication {
 
     @LastModifiedDate
     private LocalDateTime updatedAt;
+
+    @Version
+    @Column(nullable = false)
+    private Long version = 0L;
 }
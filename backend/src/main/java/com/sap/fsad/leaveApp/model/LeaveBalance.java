@@ -20,7 +20,8 @@ import java.time.LocalDateTime;
 @EntityListeners(AuditingEntityListener.class)
 public class LeaveBalance {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "leave_balances_seq")
+    @SequenceGenerator(name = "leave_balances_seq", sequenceName = "leave_balances_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne
@@ -36,6 +37,13 @@ public class LeaveBalance {
     @NotNull
     private Float used = 0f;
 
+    @NotNull
+    private Float reserved = 0f; // Days held by pending applications
+
+    @Version
+    @Column(nullable = false)
+    private Long version = 0L;
+
     @Column(name = "leave_year")
     private Integer year;
 
@@ -51,6 +59,7 @@ public class LeaveBalance {
         this.leaveType = leaveType;
         this.balance = initialBalance;
         this.used = 0f;
+        this.reserved = 0f;
         this.year = LocalDateTime.now().getYear();
     }
 }
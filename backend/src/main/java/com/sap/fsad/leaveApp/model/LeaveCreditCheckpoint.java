@@ -0,0 +1,51 @@
+package com.sap.fsad.leaveApp.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progress of one partition of the annual leave credit run. Each committed
+ * chunk moves lastUserId forward, so an interrupted run resumes after the
+ * last user it credited.
+ */
+@Entity
+@Table(name = "leave_credit_checkpoints", uniqueConstraints = {
+        @UniqueConstraint(columnNames = { "credit_year", "partition_index" })
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LeaveCreditCheckpoint {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "credit_year", nullable = false)
+    private Integer creditYear;
+
+    @Column(name = "partition_index", nullable = false)
+    private Integer partitionIndex;
+
+    @Column(nullable = false)
+    private Long lastUserId; // Users up to and including this id are done
+
+    @Column(nullable = false)
+    private Long rangeEnd; // Inclusive upper bound of the partition's user ids
+
+    private long processedUsers = 0;
+
+    private boolean completed = false;
+
+    @Column(length = 1000)
+    private String lastError; // Why the partition last stopped, cleared by the next committed chunk
+
+    private LocalDateTime startedAt;
+
+    private LocalDateTime updatedAt;
+
+    private LocalDateTime completedAt;
+}
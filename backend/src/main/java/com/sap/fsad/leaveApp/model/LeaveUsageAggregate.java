@@ -0,0 +1,64 @@
+package com.sap.fsad.leaveApp.model;
+
+import com.sap.fsad.leaveApp.model.enums.LeaveType;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Pending and approved leave per department, leave type and month. Rows are
+ * keyed by the month the leave starts in and kept up to date by
+ * LeaveUsageAggregator, which folds in the deltas of status transitions a
+ * few seconds after they commit.
+ */
+@Entity
+@Table(name = "leave_usage_aggregates")
+@IdClass(LeaveUsageAggregate.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LeaveUsageAggregate {
+
+    @Id
+    @Column(length = 50)
+    private String department; // Empty for users without a department
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(length = 30)
+    private LeaveType leaveType;
+
+    @Id
+    private int usageYear;
+
+    @Id
+    private int usageMonth;
+
+    @Column(nullable = false)
+    private long pendingCount;
+
+    @Column(nullable = false)
+    private long pendingDays;
+
+    @Column(nullable = false)
+    private long approvedCount;
+
+    @Column(nullable = false)
+    private long approvedDays;
+
+    private LocalDateTime updatedAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private String department;
+        private LeaveType leaveType;
+        private int usageYear;
+        private int usageMonth;
+    }
+}
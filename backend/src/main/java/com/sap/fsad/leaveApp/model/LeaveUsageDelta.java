@@ -0,0 +1,48 @@
+package com.sap.fsad.leaveApp.model;
+
+import com.sap.fsad.leaveApp.model.enums.LeaveType;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Change to one leave_usage_aggregates row, written in the transaction of
+ * the status change that caused it and folded into the aggregates after it
+ * commits. Status changes only ever insert here, so they never wait on the
+ * shared aggregate rows.
+ */
+@Entity
+@Table(name = "leave_usage_deltas")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LeaveUsageDelta {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "leave_usage_deltas_seq")
+    @SequenceGenerator(name = "leave_usage_deltas_seq", sequenceName = "leave_usage_deltas_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(length = 50, nullable = false)
+    private String department; // Empty for users without a department
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 30, nullable = false)
+    private LeaveType leaveType;
+
+    private int usageYear;
+
+    private int usageMonth;
+
+    private long pendingCount;
+
+    private long pendingDays;
+
+    private long approvedCount;
+
+    private long approvedDays;
+
+    private LocalDateTime createdAt;
+}
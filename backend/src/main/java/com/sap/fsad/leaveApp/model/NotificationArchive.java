@@ -0,0 +1,45 @@
+package com.sap.fsad.leaveApp.model;
+
+import com.sap.fsad.leaveApp.model.enums.NotificationType;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read notification moved out of the notifications table by the retention
+ * job. Keeps the original id and has no foreign keys, so archived rows
+ * never hold locks on live tables.
+ */
+@Entity
+@Table(name = "notifications_archive", indexes = @Index(name = "idx_notifications_archive_user", columnList = "userId, createdAt"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationArchive {
+    @Id
+    private Long id;
+
+    @Column(nullable = false)
+    private Long userId;
+
+    @Column(length = 100)
+    private String title;
+
+    private String message;
+
+    @Enumerated(EnumType.STRING)
+    private NotificationType type;
+
+    private Long relatedEntityId;
+
+    private Boolean isRead;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime updatedAt;
+
+    private LocalDateTime archivedAt;
+}
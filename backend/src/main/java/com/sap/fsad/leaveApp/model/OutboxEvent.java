@@ -0,0 +1,51 @@
+package com.sap.fsad.leaveApp.model;
+
+import com.sap.fsad.leaveApp.model.enums.NotificationType;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Pending notification/email written in the same transaction as the leave
+ * change that caused it, and relayed once that transaction has committed.
+ */
+@Entity
+@Table(name = "outbox_events", indexes = @Index(name = "idx_outbox_events_processed", columnList = "processed, id"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_events_seq")
+    @SequenceGenerator(name = "outbox_events_seq", sequenceName = "outbox_events_seq", allocationSize = 50)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private NotificationType type;
+
+    @ManyToOne
+    @JoinColumn(name = "recipient_id", nullable = false)
+    private User recipient;
+
+    @ManyToOne
+    @JoinColumn(name = "leave_application_id", nullable = false)
+    private LeaveApplication leaveApplication;
+
+    private boolean processed = false;
+
+    // Set once the row has failed max-attempts times; parked rows are no longer relayed
+    private boolean parked = false;
+
+    private int attempts = 0;
+
+    @Column(length = 1000)
+    private String lastError;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime processedAt;
+}
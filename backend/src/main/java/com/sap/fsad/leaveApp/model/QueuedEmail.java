@@ -0,0 +1,64 @@
+package com.sap.fsad.leaveApp.model;
+
+import com.sap.fsad.leaveApp.model.enums.EmailQueueStatus;
+import com.sap.fsad.leaveApp.model.enums.EmailType;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Outgoing email stored until the mail server has accepted it. Failed sends
+ * are retried by the relay at nextAttemptAt; rows that run out of attempts
+ * stay behind as DEAD until an admin replays them.
+ */
+@Entity
+@Table(name = "email_queue", indexes = {
+        @Index(name = "idx_email_queue_due", columnList = "status, nextAttemptAt, id"),
+        @Index(name = "idx_email_queue_recipient", columnList = "status, recipient, id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class QueuedEmail {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "email_queue_seq")
+    @SequenceGenerator(name = "email_queue_seq", sequenceName = "email_queue_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false)
+    private String recipient;
+
+    @Column(nullable = false)
+    private String subject;
+
+    @Lob
+    @Column(nullable = false, columnDefinition = "MEDIUMTEXT")
+    private String content;
+
+    // Type and summary are only kept for messages held for a digest
+    @Enumerated(EnumType.STRING)
+    private EmailType type;
+
+    @Column(length = 500)
+    private String summary;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private EmailQueueStatus status;
+
+    private int attempts = 0;
+
+    private LocalDateTime nextAttemptAt;
+
+    @Column(length = 1000)
+    private String lastError;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime updatedAt;
+
+    private LocalDateTime sentAt;
+}
@@ -0,0 +1,42 @@
+package com.sap.fsad.leaveApp.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Short-lived, single-use credential for opening the notification stream.
+ * Browser EventSource cannot send an Authorization header, so the client
+ * exchanges its JWT for a ticket and passes that in the URL instead. The
+ * caller's identity is copied in so redeeming the ticket needs no other
+ * lookups.
+ */
+@Entity
+@Table(name = "stream_tickets", indexes = @Index(name = "idx_stream_tickets_expires", columnList = "expiresAt"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StreamTicket {
+    @Id
+    @Column(length = 64)
+    private String ticket;
+
+    @Column(nullable = false)
+    private Long userId;
+
+    @Column(nullable = false)
+    private String username;
+
+    private String email;
+
+    @Column(length = 500)
+    private String authorities; // Comma separated, as in the JWT claim
+
+    private int securityVersion;
+
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+}
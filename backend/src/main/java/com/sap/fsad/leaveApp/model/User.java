@@ -29,7 +29,8 @@ import java.util.Set;
 @EntityListeners(AuditingEntityListener.class)
 public class User {
         @Id
-        @GeneratedValue(strategy = GenerationType.IDENTITY)
+        @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+        @SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = 50)
         private Long id;
 
         @NotBlank
@@ -83,6 +84,9 @@ public class User {
 
         private LocalDateTime lastLogin;
 
+        // Bumped whenever roles, password or active state change; tokens carrying an older value are rejected
+        private int securityVersion = 0;
+
         @CreatedDate
         private LocalDateTime createdAt;
 
@@ -0,0 +1,8 @@
+package com.sap.fsad.leaveApp.model.enums;
+
+public enum EmailQueueStatus {
+    HELD, // Waiting for the recipient's digest
+    PENDING,
+    SENT,
+    DEAD // Gave up after the last retry
+}
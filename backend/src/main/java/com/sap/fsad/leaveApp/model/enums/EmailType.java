@@ -0,0 +1,11 @@
+package com.sap.fsad.leaveApp.model.enums;
+
+public enum EmailType {
+    LEAVE_APPLICATION,
+    LEAVE_APPROVED,
+    LEAVE_REJECTED,
+    LEAVE_WITHDRAWN,
+    LEAVE_CREDIT,
+    SPECIAL_LEAVE_CREDIT,
+    RESET_PASSWORD
+}
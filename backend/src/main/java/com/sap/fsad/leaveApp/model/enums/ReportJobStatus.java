@@ -0,0 +1,8 @@
+package com.sap.fsad.leaveApp.model.enums;
+
+public enum ReportJobStatus {
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
@@ -0,0 +1,5 @@
+package com.sap.fsad.leaveApp.model.enums;
+
+public enum ReportType {
+    LEAVE_USAGE
+}
@@ -1,17 +1,23 @@
 package com.sap.fsad.leaveApp.repository;
 
+import com.sap.fsad.leaveApp.dto.response.LeaveUsageRow;
 import com.sap.fsad.leaveApp.model.LeaveApplication;
 import com.sap.fsad.leaveApp.model.User;
 import com.sap.fsad.leaveApp.model.enums.LeaveStatus;
 import com.sap.fsad.leaveApp.model.enums.LeaveType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface LeaveApplicationRepository extends JpaRepository<LeaveApplication, Long> {
@@ -50,6 +56,13 @@ public interface LeaveApplicationRepository extends JpaRepository<LeaveApplicati
         @Query("SELECT COUNT(l) FROM LeaveApplication l WHERE l.user.id = :userId AND l.status = :status")
         int countByUserIdAndStatus(@Param("userId") Long userId, @Param("status") LeaveStatus status);
 
+        long countByStatus(LeaveStatus status);
+
+        @Query("SELECT new com.sap.fsad.leaveApp.dto.response.LeaveUsageRow(l.id, u.id, u.fullName, u.department, "
+                        + "l.leaveType, l.startDate, l.endDate, l.numberOfDays, l.status, l.appliedOn, l.updatedAt) "
+                        + "FROM LeaveApplication l JOIN l.user u ORDER BY l.createdAt DESC, l.id DESC")
+        List<LeaveUsageRow> findRecent(Pageable pageable);
+
         @Query("SELECT CASE WHEN COUNT(la) > 0 THEN true ELSE false END " +
                         "FROM LeaveApplication la " +
                         "WHERE la.user.id = :userId " +
@@ -65,4 +78,30 @@ public interface LeaveApplicationRepository extends JpaRepository<LeaveApplicati
 
         @Query("SELECT l FROM LeaveApplication l WHERE l.user.department = :department")
         List<LeaveApplication> findByUserDepartment(@Param("department") String department);
+
+        // A fetch size of Integer.MIN_VALUE makes Connector/J stream the rows one at a time for this
+        // query only, instead of buffering the whole result; the driver raises net_write_timeout to
+        // netTimeoutForStreamingResults while the rows are read
+        @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648"))
+        @Query("SELECT new com.sap.fsad.leaveApp.dto.response.LeaveUsageRow(l.id, u.id, u.fullName, u.department, "
+                        + "l.leaveType, l.startDate, l.endDate, l.numberOfDays, l.status, l.appliedOn, l.updatedAt) "
+                        + "FROM LeaveApplication l JOIN l.user u "
+                        + "WHERE (:fromDate IS NULL OR l.endDate >= :fromDate) "
+                        + "AND (:toDate IS NULL OR l.startDate <= :toDate) "
+                        + "AND (:department IS NULL OR u.department = :department) "
+                        + "ORDER BY l.id")
+        Stream<LeaveUsageRow> streamLeaveUsage(@Param("fromDate") LocalDate fromDate,
+                        @Param("toDate") LocalDate toDate,
+                        @Param("department") String department);
+
+        // Incremental window on updatedAt for the CSV and NDJSON exports, streamed like streamLeaveUsage
+        @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648"))
+        @Query("SELECT new com.sap.fsad.leaveApp.dto.response.LeaveUsageRow(l.id, u.id, u.fullName, u.department, "
+                        + "l.leaveType, l.startDate, l.endDate, l.numberOfDays, l.status, l.appliedOn, l.updatedAt) "
+                        + "FROM LeaveApplication l JOIN l.user u "
+                        + "WHERE (:since IS NULL OR l.updatedAt >= :since) "
+                        + "AND (:until IS NULL OR l.updatedAt < :until) "
+                        + "ORDER BY l.updatedAt, l.id")
+        Stream<LeaveUsageRow> streamLeaveUsageUpdated(@Param("since") LocalDateTime since,
+                        @Param("until") LocalDateTime until);
 }
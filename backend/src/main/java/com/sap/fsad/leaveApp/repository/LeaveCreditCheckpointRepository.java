@@ -0,0 +1,24 @@
+package com.sap.fsad.leaveApp.repository;
+
+import com.sap.fsad.leaveApp.model.LeaveCreditCheckpoint;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface LeaveCreditCheckpointRepository extends JpaRepository<LeaveCreditCheckpoint, Long> {
+    List<LeaveCreditCheckpoint> findByCreditYearOrderByPartitionIndex(Integer creditYear);
+
+    @Query("SELECT DISTINCT c.creditYear FROM LeaveCreditCheckpoint c WHERE c.completed = false")
+    List<Integer> findIncompleteYears();
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM LeaveCreditCheckpoint c WHERE c.id = :id")
+    Optional<LeaveCreditCheckpoint> findByIdForUpdate(@Param("id") Long id);
+}
@@ -0,0 +1,81 @@
+package com.sap.fsad.leaveApp.repository;
+
+import com.sap.fsad.leaveApp.dto.response.LeaveUsageAggregateResponse;
+import com.sap.fsad.leaveApp.model.LeaveUsageAggregate;
+import com.sap.fsad.leaveApp.model.enums.LeaveType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface LeaveUsageAggregateRepository extends JpaRepository<LeaveUsageAggregate, LeaveUsageAggregate.Key> {
+
+        // Add the deltas to the row, creating it on first use
+        @Modifying
+        @Query(value = "INSERT INTO leave_usage_aggregates (department, leave_type, usage_year, usage_month, "
+                        + "pending_count, pending_days, approved_count, approved_days, updated_at) "
+                        + "VALUES (:department, :leaveType, :year, :month, :pendingCount, :pendingDays, "
+                        + ":approvedCount, :approvedDays, NOW()) "
+                        + "ON DUPLICATE KEY UPDATE pending_count = pending_count + VALUES(pending_count), "
+                        + "pending_days = pending_days + VALUES(pending_days), "
+                        + "approved_count = approved_count + VALUES(approved_count), "
+                        + "approved_days = approved_days + VALUES(approved_days), updated_at = NOW()",
+                        nativeQuery = true)
+        int addUsage(@Param("department") String department, @Param("leaveType") String leaveType,
+                        @Param("year") int year, @Param("month") int month,
+                        @Param("pendingCount") long pendingCount, @Param("pendingDays") long pendingDays,
+                        @Param("approvedCount") long approvedCount, @Param("approvedDays") long approvedDays);
+
+        // Add (sign 1) or remove (sign -1) all pending and approved leave of one user under a department
+        @Modifying
+        @Query(value = "INSERT INTO leave_usage_aggregates (department, leave_type, usage_year, usage_month, "
+                        + "pending_count, pending_days, approved_count, approved_days, updated_at) "
+                        + "SELECT :department, l.leave_type, YEAR(l.start_date), MONTH(l.start_date), "
+                        + ":sign * SUM(l.status = 'PENDING'), "
+                        + ":sign * SUM(CASE WHEN l.status = 'PENDING' THEN COALESCE(l.number_of_days, 0) ELSE 0 END), "
+                        + ":sign * SUM(l.status = 'APPROVED'), "
+                        + ":sign * SUM(CASE WHEN l.status = 'APPROVED' THEN COALESCE(l.number_of_days, 0) ELSE 0 END), "
+                        + "NOW() FROM leave_applications l "
+                        + "WHERE l.user_id = :userId AND l.status IN ('PENDING', 'APPROVED') "
+                        + "GROUP BY l.leave_type, YEAR(l.start_date), MONTH(l.start_date) "
+                        + "ON DUPLICATE KEY UPDATE pending_count = pending_count + VALUES(pending_count), "
+                        + "pending_days = pending_days + VALUES(pending_days), "
+                        + "approved_count = approved_count + VALUES(approved_count), "
+                        + "approved_days = approved_days + VALUES(approved_days), updated_at = NOW()",
+                        nativeQuery = true)
+        int addUserUsage(@Param("userId") Long userId, @Param("department") String department,
+                        @Param("sign") int sign);
+
+        @Modifying
+        @Query(value = "DELETE FROM leave_usage_aggregates", nativeQuery = true)
+        int deleteAllRows();
+
+        // Recompute every row from leave_applications in one statement
+        @Modifying
+        @Query(value = "INSERT INTO leave_usage_aggregates (department, leave_type, usage_year, usage_month, "
+                        + "pending_count, pending_days, approved_count, approved_days, updated_at) "
+                        + "SELECT COALESCE(u.department, ''), l.leave_type, YEAR(l.start_date), MONTH(l.start_date), "
+                        + "SUM(l.status = 'PENDING'), "
+                        + "SUM(CASE WHEN l.status = 'PENDING' THEN COALESCE(l.number_of_days, 0) ELSE 0 END), "
+                        + "SUM(l.status = 'APPROVED'), "
+                        + "SUM(CASE WHEN l.status = 'APPROVED' THEN COALESCE(l.number_of_days, 0) ELSE 0 END), "
+                        + "NOW() FROM leave_applications l JOIN users u ON u.id = l.user_id "
+                        + "WHERE l.status IN ('PENDING', 'APPROVED') "
+                        + "GROUP BY COALESCE(u.department, ''), l.leave_type, YEAR(l.start_date), MONTH(l.start_date)",
+                        nativeQuery = true)
+        int insertFromLeaveApplications();
+
+        @Query("SELECT new com.sap.fsad.leaveApp.dto.response.LeaveUsageAggregateResponse(a.department, a.leaveType, "
+                        + "a.usageYear, a.usageMonth, a.pendingCount, a.pendingDays, a.approvedCount, a.approvedDays) "
+                        + "FROM LeaveUsageAggregate a "
+                        + "WHERE a.usageYear BETWEEN :fromYear AND :toYear "
+                        + "AND (:department IS NULL OR a.department = :department) "
+                        + "AND (:leaveType IS NULL OR a.leaveType = :leaveType) "
+                        + "ORDER BY a.usageYear, a.usageMonth, a.department, a.leaveType")
+        List<LeaveUsageAggregateResponse> findUsage(@Param("fromYear") int fromYear, @Param("toYear") int toYear,
+                        @Param("department") String department, @Param("leaveType") LeaveType leaveType);
+}
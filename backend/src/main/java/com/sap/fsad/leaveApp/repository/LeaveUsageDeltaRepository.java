@@ -0,0 +1,28 @@
+package com.sap.fsad.leaveApp.repository;
+
+import com.sap.fsad.leaveApp.model.LeaveUsageDelta;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface LeaveUsageDeltaRepository extends JpaRepository<LeaveUsageDelta, Long> {
+
+    // lock.timeout -2 is SKIP LOCKED, so several nodes can fold deltas side by side
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT d FROM LeaveUsageDelta d ORDER BY d.id")
+    List<LeaveUsageDelta> findOldestForUpdate(Pageable pageable);
+
+    @Modifying
+    @Query(value = "DELETE FROM leave_usage_deltas", nativeQuery = true)
+    int deleteAllRows();
+}
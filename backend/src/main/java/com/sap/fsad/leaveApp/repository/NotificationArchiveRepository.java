@@ -0,0 +1,22 @@
+package com.sap.fsad.leaveApp.repository;
+
+import com.sap.fsad.leaveApp.model.NotificationArchive;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+
+@Repository
+public interface NotificationArchiveRepository extends JpaRepository<NotificationArchive, Long> {
+
+    // INSERT IGNORE keeps a retried or concurrent batch from failing on rows already archived
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO notifications_archive (id, user_id, title, message, type, related_entity_id, "
+            + "is_read, created_at, updated_at, archived_at) "
+            + "SELECT id, user_id, title, message, type, related_entity_id, is_read, created_at, updated_at, NOW() "
+            + "FROM notifications WHERE id IN (:ids)", nativeQuery = true)
+    int archiveByIds(@Param("ids") Collection<Long> ids);
+}
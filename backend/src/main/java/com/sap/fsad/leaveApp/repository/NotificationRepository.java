@@ -1,13 +1,20 @@
 package com.sap.fsad.leaveApp.repository;
 
+import com.sap.fsad.leaveApp.dto.response.NotificationResponse;
 import com.sap.fsad.leaveApp.model.Notification;
 import com.sap.fsad.leaveApp.model.User;
 import com.sap.fsad.leaveApp.model.enums.NotificationType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface NotificationRepository extends JpaRepository<Notification, Long> {
@@ -20,7 +27,48 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
     @Query("SELECT COUNT(n) FROM Notification n WHERE n.user.id = :userId AND n.isRead = false")
     long countUnreadNotificationsByUserId(Long userId);
 
+    @Query("SELECT n.user.id, COUNT(n) FROM Notification n WHERE n.isRead = false AND n.user.id IN :userIds "
+            + "GROUP BY n.user.id")
+    List<Object[]> countUnreadByUserIds(@Param("userIds") Collection<Long> userIds);
+
     List<Notification> findByUserOrderByCreatedAtDesc(User user);
 
+    @Query("SELECT new com.sap.fsad.leaveApp.dto.response.NotificationResponse(n.id, n.type, n.title, n.message, "
+            + "n.relatedEntityId, n.isRead, n.createdAt) FROM Notification n WHERE n.user.id = :userId "
+            + "ORDER BY n.createdAt DESC, n.id DESC")
+    List<NotificationResponse> findFeedFirstPage(@Param("userId") Long userId, Pageable pageable);
+
+    // Keyset page: the notifications after the cursor in (createdAt, id) descending order
+    @Query("SELECT new com.sap.fsad.leaveApp.dto.response.NotificationResponse(n.id, n.type, n.title, n.message, "
+            + "n.relatedEntityId, n.isRead, n.createdAt) FROM Notification n WHERE n.user.id = :userId "
+            + "AND (n.createdAt < :createdAt OR (n.createdAt = :createdAt AND n.id < :id)) "
+            + "ORDER BY n.createdAt DESC, n.id DESC")
+    List<NotificationResponse> findFeedPageBefore(@Param("userId") Long userId,
+            @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Pageable pageable);
+
+    Optional<Notification> findByIdAndUserId(Long id, Long userId);
+
+    // Read notifications of a type created before the cutoff, for the retention job
+    @Query("SELECT n.id FROM Notification n WHERE n.type = :type AND n.isRead = true AND n.createdAt < :cutoff "
+            + "ORDER BY n.createdAt")
+    List<Long> findExpiredReadIds(@Param("type") NotificationType type, @Param("cutoff") LocalDateTime cutoff,
+            Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM Notification n WHERE n.id IN :ids")
+    int deleteByIds(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("UPDATE Notification n SET n.isRead = true, n.updatedAt = :now WHERE n.user.id = :userId AND n.isRead = false")
+    int markAllReadByUserId(@Param("userId") Long userId, @Param("now") LocalDateTime now);
+
     List<Notification> findByRelatedEntityId(Long entityId);
+
+    // Notifications missed by a reconnecting stream client: those after its last event in (createdAt, id) order
+    @Query("SELECT new com.sap.fsad.leaveApp.dto.response.NotificationResponse(n.id, n.type, n.title, n.message, "
+            + "n.relatedEntityId, n.isRead, n.createdAt) FROM Notification n WHERE n.user.id = :userId "
+            + "AND (n.createdAt > :createdAt OR (n.createdAt = :createdAt AND n.id > :id)) "
+            + "ORDER BY n.createdAt, n.id")
+    List<NotificationResponse> findStreamReplay(@Param("userId") Long userId,
+            @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Pageable pageable);
 }
@@ -0,0 +1,34 @@
+package com.sap.fsad.leaveApp.repository;
+
+import com.sap.fsad.leaveApp.model.OutboxEvent;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    @Query("SELECT e.id FROM OutboxEvent e WHERE e.processed = false AND e.parked = false ORDER BY e.id")
+    List<Long> findUnprocessedIds(Pageable pageable);
+
+    // lock.timeout -2 is SKIP LOCKED, so several relays can drain the outbox side by side
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT e FROM OutboxEvent e WHERE e.id = :id AND e.processed = false AND e.parked = false")
+    Optional<OutboxEvent> findUnprocessedForUpdate(@Param("id") Long id);
+
+    @Modifying
+    @Query("DELETE FROM OutboxEvent e WHERE e.processed = true AND e.processedAt < :before")
+    int deleteProcessedBefore(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,58 @@
+package com.sap.fsad.leaveApp.repository;
+
+import com.sap.fsad.leaveApp.model.QueuedEmail;
+import com.sap.fsad.leaveApp.model.enums.EmailQueueStatus;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface QueuedEmailRepository extends JpaRepository<QueuedEmail, Long> {
+
+    // lock.timeout -2 is SKIP LOCKED, so several relays can drain the queue side by side
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT e FROM QueuedEmail e WHERE e.status = 'PENDING' AND e.nextAttemptAt <= :now "
+            + "ORDER BY e.nextAttemptAt, e.id")
+    List<QueuedEmail> findDueForUpdate(@Param("now") LocalDateTime now, Pageable pageable);
+
+    // Recipients whose oldest held message has waited a full window, or who have a full digest
+    @Query("SELECT e.recipient FROM QueuedEmail e WHERE e.status = 'HELD' "
+            + "GROUP BY e.recipient HAVING MIN(e.createdAt) <= :cutoff OR COUNT(e) >= :maxItems")
+    List<String> findRecipientsWithDueDigest(@Param("cutoff") LocalDateTime cutoff, @Param("maxItems") long maxItems);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT e FROM QueuedEmail e WHERE e.status = 'HELD' AND e.recipient = :recipient ORDER BY e.id")
+    List<QueuedEmail> findHeldForUpdate(@Param("recipient") String recipient);
+
+    Page<QueuedEmail> findByStatusOrderByUpdatedAtDesc(EmailQueueStatus status, Pageable pageable);
+
+    long countByStatus(EmailQueueStatus status);
+
+    // Only while the caller still holds the lease, so a row another relay has claimed since is left alone
+    @Modifying
+    @Query("UPDATE QueuedEmail e SET e.status = 'SENT', e.sentAt = :now, e.updatedAt = :now, "
+            + "e.nextAttemptAt = null WHERE e.id = :id AND e.status = 'PENDING' AND e.nextAttemptAt = :lease")
+    int markSent(@Param("id") Long id, @Param("lease") LocalDateTime lease, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE QueuedEmail e SET e.status = 'PENDING', e.attempts = 0, e.nextAttemptAt = :now, "
+            + "e.updatedAt = :now WHERE e.status = 'DEAD'")
+    int replayAllDead(@Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM QueuedEmail e WHERE e.status = 'SENT' AND e.sentAt < :before")
+    int deleteSentBefore(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,36 @@
+package com.sap.fsad.leaveApp.repository;
+
+import com.sap.fsad.leaveApp.model.RateLimitBucket;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface RateLimitBucketRepository extends JpaRepository<RateLimitBucket, String> {
+
+    // INSERT IGNORE lets two nodes create the same bucket without a duplicate key error
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO rate_limit_buckets (bucket_key, tokens, updated_at) "
+            + "VALUES (:key, :tokens, :updatedAt)", nativeQuery = true)
+    int insertIfAbsent(@Param("key") String key, @Param("tokens") double tokens,
+            @Param("updatedAt") long updatedAt);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM RateLimitBucket b WHERE b.bucketKey = :key")
+    Optional<RateLimitBucket> findForUpdate(@Param("key") String key);
+
+    @Modifying
+    @Query(value = "UPDATE rate_limit_buckets SET tokens = LEAST(:capacity, tokens + 1) WHERE bucket_key = :key",
+            nativeQuery = true)
+    int refund(@Param("key") String key, @Param("capacity") double capacity);
+
+    @Modifying
+    @Query("DELETE FROM RateLimitBucket b WHERE b.updatedAt < :cutoff")
+    int deleteIdleBefore(@Param("cutoff") long cutoff);
+}
@@ -2,11 +2,14 @@ package com.sap.fsad.leaveApp.repository;
 
 import com.sap.fsad.leaveApp.model.User;
 import com.sap.fsad.leaveApp.model.enums.UserRole;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,6 +17,9 @@ import java.util.Optional;
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUsername(String username);
 
+    @EntityGraph(attributePaths = { "roles", "manager" })
+    Optional<User> findWithRolesAndManagerById(Long id);
+
     Optional<User> findByEmail(String email);
 
     Boolean existsByUsername(String username);
@@ -31,5 +37,22 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     List<User> findByIsActiveTrue();
 
+    long countByIsActiveTrue();
+
+    @Query("SELECT r, COUNT(u) FROM User u JOIN u.roles r GROUP BY r")
+    List<Object[]> countUsersByRole();
+
+    @Query("SELECT u.id FROM User u WHERE u.isActive = true AND u.id > :afterId AND u.id <= :maxId ORDER BY u.id")
+    List<Long> findActiveIdsAfter(@Param("afterId") Long afterId, @Param("maxId") Long maxId, Pageable pageable);
+
+    @Query("SELECT DISTINCT u FROM User u LEFT JOIN FETCH u.roles WHERE u.id IN :ids")
+    List<User> findWithRolesByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT COALESCE(MAX(u.id), 0) FROM User u")
+    Long findMaxId();
+
     Optional<User> findByResetToken(String resetToken);
+
+    @Query("SELECT u.id, u.securityVersion FROM User u")
+    List<Object[]> findAllSecurityVersions();
 }
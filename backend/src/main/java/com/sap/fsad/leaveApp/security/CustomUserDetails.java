@@ -18,15 +18,22 @@ public class CustomUserDetails implements UserDetails {
     private String email;
     private Collection<? extends GrantedAuthority> authorities;
     private boolean isActive;
+    private int securityVersion;
 
     public CustomUserDetails(Long id, String username, String password, String email,
             Collection<? extends GrantedAuthority> authorities, boolean isActive) {
+        this(id, username, password, email, authorities, isActive, 0);
+    }
+
+    public CustomUserDetails(Long id, String username, String password, String email,
+            Collection<? extends GrantedAuthority> authorities, boolean isActive, int securityVersion) {
         this.id = id;
         this.username = username;
         this.password = password;
         this.email = email;
         this.authorities = authorities;
         this.isActive = isActive;
+        this.securityVersion = securityVersion;
     }
 
     public static CustomUserDetails build(User user) {
@@ -40,7 +47,8 @@ public class CustomUserDetails implements UserDetails {
                 user.getPassword(),
                 user.getEmail(),
                 authorities,
-                user.isActive());
+                user.isActive(),
+                user.getSecurityVersion());
     }
 
     public Long getId() {
@@ -51,6 +59,10 @@ public class CustomUserDetails implements UserDetails {
         return email;
     }
 
+    public int getSecurityVersion() {
+        return securityVersion;
+    }
+
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
         return authorities;
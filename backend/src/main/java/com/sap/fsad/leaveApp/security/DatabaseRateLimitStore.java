@@ -0,0 +1,67 @@
+package com.sap.fsad.leaveApp.security;
+
+import com.sap.fsad.leaveApp.model.RateLimitBucket;
+import com.sap.fsad.leaveApp.repository.RateLimitBucketRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Token buckets kept in the rate_limit_buckets table so every node enforces
+ * the same limits. Each check locks one row for the length of a short
+ * transaction.
+ */
+@Component
+@ConditionalOnProperty(name = "app.rate-limit.store", havingValue = "database")
+public class DatabaseRateLimitStore implements RateLimitStore {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    @Autowired
+    private RateLimitBucketRepository rateLimitBucketRepository;
+
+    @Value("${app.rate-limit.idle-eviction-ms:600000}")
+    private long idleEvictionMs;
+
+    @Override
+    @Transactional
+    public long tryConsume(String key, RateLimitRule rule) {
+        long now = System.currentTimeMillis();
+        rateLimitBucketRepository.insertIfAbsent(key, rule.getCapacity(), now);
+        RateLimitBucket bucket = rateLimitBucketRepository.findForUpdate(key)
+                .orElseThrow(() -> new IllegalStateException("Rate limit bucket vanished: " + key));
+
+        long elapsed = Math.max(0, now - bucket.getUpdatedAt());
+        double tokens = Math.min(rule.getCapacity(), bucket.getTokens() + elapsed * rule.getRefillPerMilli());
+        bucket.setUpdatedAt(Math.max(now, bucket.getUpdatedAt()));
+
+        if (tokens < 1) {
+            bucket.setTokens(tokens);
+            return (long) Math.ceil((1 - tokens) / rule.getRefillPerMilli());
+        }
+
+        bucket.setTokens(tokens - 1);
+        return 0;
+    }
+
+    @Override
+    @Transactional
+    public void refund(String key, RateLimitRule rule) {
+        rateLimitBucketRepository.refund(key, rule.getCapacity());
+    }
+
+    @Override
+    @Transactional
+    @Scheduled(fixedDelayString = "${app.rate-limit.eviction-interval-ms:60000}")
+    public void evictIdle() {
+        int evicted = rateLimitBucketRepository.deleteIdleBefore(System.currentTimeMillis() - idleEvictionMs);
+        if (evicted > 0) {
+            logger.debug("Evicted {} idle rate limit buckets", evicted);
+        }
+    }
+}
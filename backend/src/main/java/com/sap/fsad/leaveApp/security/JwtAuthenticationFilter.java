@@ -1,5 +1,6 @@
 package com.sap.fsad.leaveApp.security;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -17,11 +18,16 @@ import java.io.IOException;
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+    private static final String NOTIFICATION_STREAM_PATH = "/api/notifications/stream";
+
     @Autowired
     private JwtTokenProvider tokenProvider;
 
     @Autowired
-    private UserDetailsServiceImpl userDetailsService;
+    private UserSecurityVersionRegistry securityVersionRegistry;
+
+    @Autowired
+    private StreamTicketStore streamTicketStore;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
@@ -38,12 +44,18 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             return;
         }
         try {
-            String jwt = getJwtFromRequest(request);
-
-            if (StringUtils.hasText(jwt) && tokenProvider.validateToken(jwt)) {
-                String username = tokenProvider.getUsernameFromToken(jwt);
+            CustomUserDetails userDetails;
+            String ticket = getStreamTicketFromRequest(request);
+            if (ticket != null) {
+                userDetails = streamTicketStore.redeem(ticket);
+            } else {
+                String jwt = getJwtFromRequest(request);
+                Claims claims = StringUtils.hasText(jwt) ? tokenProvider.getVerifiedClaims(jwt) : null;
+                userDetails = claims != null ? tokenProvider.getUserDetailsFromClaims(claims) : null;
+            }
 
-                CustomUserDetails userDetails = (CustomUserDetails) userDetailsService.loadUserByUsername(username);
+            if (userDetails != null
+                    && securityVersionRegistry.isCurrent(userDetails.getId(), userDetails.getSecurityVersion())) {
                 UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
                         userDetails, null, userDetails.getAuthorities());
 
@@ -66,4 +78,14 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
         return null;
     }
+
+    // Browser EventSource cannot set headers, so the notification stream takes a single-use ticket
+    // in the URL instead. The JWT itself is never accepted as a parameter, as URLs end up in logs.
+    private String getStreamTicketFromRequest(HttpServletRequest request) {
+        if (!NOTIFICATION_STREAM_PATH.equals(request.getRequestURI()) || request.getHeader("Authorization") != null) {
+            return null;
+        }
+        String ticket = request.getParameter("ticket");
+        return StringUtils.hasText(ticket) ? ticket : null;
+    }
 }
\ No newline at end of file
@@ -11,12 +11,19 @@ import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Component;
 
-import com.sap.fsad.leaveApp.repository.BlacklistTokenRepository;
+import jakarta.annotation.PostConstruct;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
+import java.util.Base64;
 import java.util.Collection;
 import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Component
@@ -28,11 +35,39 @@ public class JwtTokenProvider {
     @Value("${app.jwt.expiration}")
     private int jwtExpirationInMs;
 
+    @Value("${app.jwt.verified-cache-size:10000}")
+    private int verifiedCacheSize;
+
     @Autowired
-    private BlacklistTokenRepository blacklistTokenRepository;
+    private TokenRevocationStore tokenRevocationStore;
+
+    private Key signingKey;
+
+    private JwtParser jwtParser;
+
+    // Claims of tokens whose signature has already been checked, keyed by token digest. Access ordered,
+    // so a full cache drops its least recently used token in constant time. Guarded by its own monitor.
+    private final Map<String, VerifiedToken> verifiedTokens = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, VerifiedToken> eldest) {
+            return size() > verifiedCacheSize;
+        }
+    };
 
-    private Key getSigningKey() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes());
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    });
+
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        jwtParser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
     }
 
     public String generateToken(Authentication authentication) {
@@ -47,18 +82,16 @@ public class JwtTokenProvider {
                         .map(GrantedAuthority::getAuthority)
                         .collect(Collectors.joining(",")))
                 .claim("userId", userPrincipal.getId())
+                .claim("email", userPrincipal.getEmail())
+                .claim("ver", userPrincipal.getSecurityVersion())
                 .setIssuedAt(new Date())
                 .setExpiration(expiryDate)
-                .signWith(getSigningKey(), SignatureAlgorithm.HS512)
+                .signWith(signingKey, SignatureAlgorithm.HS512)
                 .compact();
     }
 
     public UsernamePasswordAuthenticationToken getAuthentication(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        Claims claims = jwtParser.parseClaimsJws(token).getBody();
 
         Collection<? extends GrantedAuthority> authorities = Arrays
                 .stream(claims.get("authorities").toString().split(","))
@@ -68,48 +101,120 @@ public class JwtTokenProvider {
         return new UsernamePasswordAuthenticationToken(claims.getSubject(), "", authorities);
     }
 
-    public String getUsernameFromToken(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    /**
+     * Build the principal straight from verified claims, without a user lookup
+     */
+    public CustomUserDetails getUserDetailsFromClaims(Claims claims) {
+        Object userId = claims.get("userId");
+        if (userId == null) {
+            return null;
+        }
 
-        return claims.getSubject();
+        Object authorityClaim = claims.get("authorities");
+        Collection<GrantedAuthority> authorities = authorityClaim == null || authorityClaim.toString().isEmpty()
+                ? List.of()
+                : Arrays.stream(authorityClaim.toString().split(","))
+                        .map(SimpleGrantedAuthority::new)
+                        .collect(Collectors.toList());
+
+        Object version = claims.get("ver");
+        return new CustomUserDetails(
+                Long.parseLong(userId.toString()),
+                claims.getSubject(),
+                null,
+                claims.get("email", String.class),
+                authorities,
+                true,
+                version == null ? 0 : Integer.parseInt(version.toString()));
     }
 
-    public Long getUserIdFromToken(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    public String getUsernameFromToken(String token) {
+        return jwtParser.parseClaimsJws(token).getBody().getSubject();
+    }
 
+    public Long getUserIdFromToken(String token) {
+        Claims claims = jwtParser.parseClaimsJws(token).getBody();
         return Long.parseLong(claims.get("userId").toString());
     }
 
     public Date getExpiryDateFromToken(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build() // Replace 'secretKey' with your actual key variable
-                .parseClaimsJws(token)
-                .getBody();
-        return claims.getExpiration();
+        return jwtParser.parseClaimsJws(token).getBody().getExpiration();
     }
 
     public boolean validateToken(String authToken) {
-        try {
+        return getVerifiedClaims(authToken) != null;
+    }
+
+    /**
+     * Verify the token once and return its claims, or null if the token is
+     * invalid, expired or blacklisted. Tokens seen before are answered from
+     * the verified-claims cache without repeating the signature check.
+     */
+    public Claims getVerifiedClaims(String authToken) {
+        if (authToken == null || authToken.isEmpty()) {
+            return null;
+        }
+
+        if (tokenRevocationStore.isRevoked(authToken)) {
+            return null;
+        }
 
-            if (blacklistTokenRepository.existsByToken(authToken)) {
-                return false;
+        String digest = digest(authToken);
+        long now = System.currentTimeMillis();
+
+        VerifiedToken cached;
+        synchronized (verifiedTokens) {
+            cached = verifiedTokens.get(digest);
+            if (cached != null && cached.expiresAt <= now) {
+                verifiedTokens.remove(digest);
             }
-            Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(authToken);
-            return true;
+        }
+        if (cached != null) {
+            return cached.expiresAt > now ? cached.claims : null;
+        }
+
+        try {
+            Claims claims = jwtParser.parseClaimsJws(authToken).getBody();
+            cacheVerifiedClaims(digest, claims);
+            return claims;
         } catch (JwtException | IllegalArgumentException e) {
-            return false;
+            return null;
+        }
+    }
+
+    /**
+     * Drop a token from the verified-claims cache, e.g. on logout
+     */
+    public void evictVerifiedToken(String authToken) {
+        String digest = digest(authToken);
+        synchronized (verifiedTokens) {
+            verifiedTokens.remove(digest);
+        }
+    }
+
+    private void cacheVerifiedClaims(String digest, Claims claims) {
+        if (claims.getExpiration() == null) {
+            return;
+        }
+
+        VerifiedToken token = new VerifiedToken(claims, claims.getExpiration().getTime());
+        synchronized (verifiedTokens) {
+            verifiedTokens.put(digest, token);
+        }
+    }
+
+    private static String digest(String token) {
+        byte[] hash = SHA_256.get().digest(token.getBytes(StandardCharsets.UTF_8));
+        return Base64.getEncoder().encodeToString(hash);
+    }
+
+    private static final class VerifiedToken {
+        private final Claims claims;
+        private final long expiresAt;
+
+        private VerifiedToken(Claims claims, long expiresAt) {
+            this.claims = claims;
+            this.expiresAt = expiresAt;
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,122 @@
+package com.sap.fsad.leaveApp.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory token buckets. Each bucket is a single AtomicLong updated with
+ * compare-and-set, so concurrent requests for the same key never block.
+ */
+@Component
+@ConditionalOnProperty(name = "app.rate-limit.store", havingValue = "local", matchIfMissing = true)
+public class LocalRateLimitStore implements RateLimitStore {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    // Bucket state: upper 40 bits are the last refill time in millis since
+    // startup, lower 24 bits are the remaining tokens in thousandths
+    private static final int TOKEN_BITS = 24;
+    private static final long TOKEN_MASK = (1L << TOKEN_BITS) - 1;
+    private static final long MILLI_TOKENS = 1000L;
+
+    private final long origin = System.nanoTime();
+
+    private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+    @Value("${app.rate-limit.idle-eviction-ms:600000}")
+    private long idleEvictionMs;
+
+    @Override
+    public long tryConsume(String key, RateLimitRule rule) {
+        long now = now();
+        AtomicLong bucket = buckets.computeIfAbsent(key, k -> new AtomicLong(pack(now, capacityOf(rule))));
+
+        long capacity = capacityOf(rule);
+        double refillPerMilli = rule.getRefillPerMilli() * MILLI_TOKENS;
+
+        while (true) {
+            long state = bucket.get();
+            long last = state >>> TOKEN_BITS;
+            long tokens = state & TOKEN_MASK;
+
+            long refillTime = last;
+            if (now > last && tokens < capacity) {
+                // Only advance the clock by the time actually converted into
+                // tokens, so slow refill rates do not lose fractions
+                long elapsed = now - last;
+                long added = (long) (elapsed * refillPerMilli);
+                if (tokens + added >= capacity) {
+                    tokens = capacity;
+                    refillTime = now;
+                } else if (added > 0) {
+                    tokens += added;
+                    refillTime = last + (long) (added / refillPerMilli);
+                }
+            } else if (now > last) {
+                refillTime = now;
+            }
+
+            if (tokens < MILLI_TOKENS) {
+                return (long) Math.ceil((MILLI_TOKENS - tokens) / refillPerMilli);
+            }
+
+            if (bucket.compareAndSet(state, pack(refillTime, tokens - MILLI_TOKENS))) {
+                return 0;
+            }
+        }
+    }
+
+    @Override
+    public void refund(String key, RateLimitRule rule) {
+        AtomicLong bucket = buckets.get(key);
+        if (bucket == null) {
+            return; // Evicted, so it will start out full anyway
+        }
+
+        long capacity = capacityOf(rule);
+        while (true) {
+            long state = bucket.get();
+            long tokens = Math.min(capacity, (state & TOKEN_MASK) + MILLI_TOKENS);
+            if (bucket.compareAndSet(state, pack(state >>> TOKEN_BITS, tokens))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Drop buckets idle long enough to have refilled completely. A request
+     * racing with the removal may consume from the dropped bucket, which at
+     * worst grants one extra request.
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${app.rate-limit.eviction-interval-ms:60000}")
+    public void evictIdle() {
+        long cutoff = now() - idleEvictionMs;
+        int before = buckets.size();
+        buckets.values().removeIf(bucket -> (bucket.get() >>> TOKEN_BITS) < cutoff);
+        int evicted = before - buckets.size();
+        if (evicted > 0) {
+            logger.debug("Evicted {} idle rate limit buckets, {} remaining", evicted, buckets.size());
+        }
+    }
+
+    private long now() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - origin);
+    }
+
+    private static long capacityOf(RateLimitRule rule) {
+        return rule.getCapacity() * MILLI_TOKENS;
+    }
+
+    private static long pack(long time, long tokens) {
+        return (time << TOKEN_BITS) | tokens;
+    }
+}
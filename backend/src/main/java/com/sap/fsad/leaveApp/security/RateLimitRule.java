@@ -0,0 +1,47 @@
+package com.sap.fsad.leaveApp.security;
+
+/**
+ * Token bucket settings for one class of keys: the bucket holds at most
+ * {@code capacity} requests and refills at {@code refillPerMinute}.
+ */
+public class RateLimitRule {
+
+    // The local store packs thousandths of a token into 24 bits
+    static final int MAX_CAPACITY = 16_000;
+
+    private final String name;
+    private final int capacity;
+    private final int refillPerMinute;
+
+    public RateLimitRule(String name, int capacity, int refillPerMinute) {
+        if (capacity < 1 || capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Rate limit capacity for " + name + " must be between 1 and "
+                    + MAX_CAPACITY);
+        }
+        if (refillPerMinute < 1) {
+            throw new IllegalArgumentException("Rate limit refill for " + name + " must be positive");
+        }
+        this.name = name;
+        this.capacity = capacity;
+        this.refillPerMinute = refillPerMinute;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getRefillPerMinute() {
+        return refillPerMinute;
+    }
+
+    /**
+     * Tokens added per millisecond
+     */
+    public double getRefillPerMilli() {
+        return refillPerMinute / 60_000.0;
+    }
+}
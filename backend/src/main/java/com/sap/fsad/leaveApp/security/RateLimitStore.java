@@ -0,0 +1,25 @@
+package com.sap.fsad.leaveApp.security;
+
+/**
+ * Backing store for rate limit buckets. The local store keeps buckets in
+ * memory; the database store shares them between nodes.
+ */
+public interface RateLimitStore {
+
+    /**
+     * Take one token from the bucket for the key. Returns 0 when the request is
+     * allowed, otherwise the milliseconds until a token becomes available.
+     */
+    long tryConsume(String key, RateLimitRule rule);
+
+    /**
+     * Give back a token taken by tryConsume, for a request a later check
+     * rejected. The bucket never goes above its capacity.
+     */
+    void refund(String key, RateLimitRule rule);
+
+    /**
+     * Drop buckets that have not been touched for the configured idle time
+     */
+    void evictIdle();
+}
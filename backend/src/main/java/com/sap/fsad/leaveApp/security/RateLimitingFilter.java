@@ -1,49 +1,123 @@
 package com.sap.fsad.leaveApp.security;
 
-import jakarta.servlet.Filter;
+import jakarta.annotation.PostConstruct;
 import jakarta.servlet.FilterChain;
-import jakarta.servlet.ServletRequest;
-import jakarta.servlet.ServletResponse;
+import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
-import org.springframework.stereotype.Component;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
 
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.TimeUnit;
+import java.io.IOException;
 
-@Component
-public class RateLimitingFilter implements Filter {
-    private static final int MAX_REQUESTS_PER_MINUTE = 120;
-    private static final ConcurrentHashMap<String, RequestCounter> requestCounts = new ConcurrentHashMap<>();
+/**
+ * Applies token bucket limits per client and per endpoint group. A client is
+ * the authenticated user, or the IP for anonymous requests, so users behind
+ * one NAT do not share a bucket. Runs after the JWT filter so the user is
+ * already known.
+ */
+public class RateLimitingFilter extends OncePerRequestFilter {
+
+    @Autowired
+    private RateLimitStore rateLimitStore;
+
+    @Value("${app.rate-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.rate-limit.ip.capacity:120}")
+    private int ipCapacity;
+
+    @Value("${app.rate-limit.ip.refill-per-minute:120}")
+    private int ipRefillPerMinute;
+
+    @Value("${app.rate-limit.user.capacity:120}")
+    private int userCapacity;
+
+    @Value("${app.rate-limit.user.refill-per-minute:120}")
+    private int userRefillPerMinute;
+
+    @Value("${app.rate-limit.auth.capacity:10}")
+    private int authCapacity;
+
+    @Value("${app.rate-limit.auth.refill-per-minute:10}")
+    private int authRefillPerMinute;
+
+    @Value("${app.rate-limit.reports.capacity:10}")
+    private int reportsCapacity;
+
+    @Value("${app.rate-limit.reports.refill-per-minute:20}")
+    private int reportsRefillPerMinute;
+
+    private RateLimitRule ipRule;
+    private RateLimitRule userRule;
+    private RateLimitRule authRule;
+    private RateLimitRule reportsRule;
+
+    @PostConstruct
+    void init() {
+        ipRule = new RateLimitRule("ip", ipCapacity, ipRefillPerMinute);
+        userRule = new RateLimitRule("user", userCapacity, userRefillPerMinute);
+        authRule = new RateLimitRule("auth", authCapacity, authRefillPerMinute);
+        reportsRule = new RateLimitRule("reports", reportsCapacity, reportsRefillPerMinute);
+    }
 
     @Override
-    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
-            throws java.io.IOException, jakarta.servlet.ServletException {
-        HttpServletRequest httpRequest = (HttpServletRequest) request;
-        String clientIp = httpRequest.getRemoteAddr();
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (!enabled) {
+            filterChain.doFilter(request, response);
+            return;
+        }
 
-        RequestCounter counter = requestCounts.computeIfAbsent(clientIp, k -> new RequestCounter());
-        if (counter.incrementAndCheckLimit()) {
-            response.getWriter().write("Too many requests. Please try again later.");
+        String clientIp = request.getRemoteAddr();
+        String requestURI = request.getRequestURI();
+        Long userId = currentUserId();
+
+        String clientKey = userId != null ? "user:" + userId : "ip:" + clientIp;
+        RateLimitRule clientRule = userId != null ? userRule : ipRule;
+
+        String groupKey = null;
+        RateLimitRule groupRule = null;
+        if (requestURI.startsWith("/api/auth/")) {
+            // Login and password reset are limited by IP, before any user is known
+            groupKey = "auth:ip:" + clientIp;
+            groupRule = authRule;
+        } else if (requestURI.startsWith("/api/reports/")) {
+            groupKey = "reports:" + clientKey;
+            groupRule = reportsRule;
+        }
+
+        long retryAfterMillis = rateLimitStore.tryConsume(clientKey, clientRule);
+        if (retryAfterMillis == 0 && groupKey != null) {
+            retryAfterMillis = rateLimitStore.tryConsume(groupKey, groupRule);
+            if (retryAfterMillis > 0) {
+                // The request is rejected, so it must not count against the client either
+                rateLimitStore.refund(clientKey, clientRule);
+            }
+        }
+
+        if (retryAfterMillis > 0) {
+            long retryAfterSeconds = Math.max(1, (retryAfterMillis + 999) / 1000);
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader("Retry-After", String.valueOf(retryAfterSeconds));
             response.setContentType("text/plain");
             response.setCharacterEncoding("UTF-8");
+            response.getWriter().write("Too many requests. Please try again later.");
             return;
         }
 
-        chain.doFilter(request, response);
+        filterChain.doFilter(request, response);
     }
 
-    private static class RequestCounter {
-        private int count = 0;
-        private long timestamp = System.currentTimeMillis();
-
-        synchronized boolean incrementAndCheckLimit() {
-            long now = System.currentTimeMillis();
-            if (now - timestamp > TimeUnit.MINUTES.toMillis(1)) {
-                count = 0;
-                timestamp = now;
-            }
-            count++;
-            return count > MAX_REQUESTS_PER_MINUTE;
+    private Long currentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof CustomUserDetails userDetails) {
+            return userDetails.getId();
         }
+        return null;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,91 @@
+package com.sap.fsad.leaveApp.security;
+
+import com.sap.fsad.leaveApp.dto.response.StreamTicketResponse;
+import com.sap.fsad.leaveApp.model.StreamTicket;
+import com.sap.fsad.leaveApp.repository.StreamTicketRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
+
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Issues and redeems notification stream tickets. Tickets live in the
+ * database so one issued by any node can be redeemed on any other, and a
+ * ticket is deleted as it is redeemed so it works exactly once.
+ */
+@Component
+public class StreamTicketStore {
+
+    private final SecureRandom random = new SecureRandom();
+
+    @Autowired
+    private StreamTicketRepository streamTicketRepository;
+
+    @Value("${app.notifications.stream.ticket-ttl-seconds:30}")
+    private long ticketTtlSeconds;
+
+    /**
+     * Issue a ticket for the authenticated user
+     */
+    @Transactional
+    public StreamTicketResponse issue(CustomUserDetails userDetails) {
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+
+        StreamTicket ticket = new StreamTicket();
+        ticket.setTicket(Base64.getUrlEncoder().withoutPadding().encodeToString(bytes));
+        ticket.setUserId(userDetails.getId());
+        ticket.setUsername(userDetails.getUsername());
+        ticket.setEmail(userDetails.getEmail());
+        ticket.setAuthorities(userDetails.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .collect(Collectors.joining(",")));
+        ticket.setSecurityVersion(userDetails.getSecurityVersion());
+        ticket.setExpiresAt(LocalDateTime.now().plusSeconds(ticketTtlSeconds));
+        streamTicketRepository.save(ticket);
+
+        return new StreamTicketResponse(ticket.getTicket(), ticketTtlSeconds);
+    }
+
+    /**
+     * Redeem a ticket. Returns the user it was issued to, or null if it is
+     * unknown, already used or expired.
+     */
+    @Transactional
+    public CustomUserDetails redeem(String ticketValue) {
+        StreamTicket ticket = streamTicketRepository.findByTicketForUpdate(ticketValue).orElse(null);
+        if (ticket == null) {
+            return null;
+        }
+        streamTicketRepository.delete(ticket);
+        if (ticket.getExpiresAt().isBefore(LocalDateTime.now())) {
+            return null;
+        }
+
+        Collection<GrantedAuthority> authorities = !StringUtils.hasText(ticket.getAuthorities())
+                ? List.of()
+                : Arrays.stream(ticket.getAuthorities().split(","))
+                        .map(SimpleGrantedAuthority::new)
+                        .collect(Collectors.toList());
+        return new CustomUserDetails(ticket.getUserId(), ticket.getUsername(), null, ticket.getEmail(),
+                authorities, true, ticket.getSecurityVersion());
+    }
+
+    @Scheduled(cron = "0 20 * * * *") // Runs every hour
+    @Transactional
+    public void purgeExpired() {
+        streamTicketRepository.deleteExpiredBefore(LocalDateTime.now());
+    }
+}
@@ -0,0 +1,171 @@
+package com.sap.fsad.leaveApp.security;
+
+import com.sap.fsad.leaveApp.model.BlacklistedToken;
+import com.sap.fsad.leaveApp.repository.BlacklistTokenRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * In-memory view of the blacklisted_tokens table. A Bloom filter answers
+ * "definitely not revoked" for almost every request; only possible hits
+ * consult the exact set. Neither path touches the database.
+ */
+@Component
+public class TokenRevocationStore {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    @Autowired
+    private BlacklistTokenRepository blacklistTokenRepository;
+
+    @Value("${app.jwt.revocation.expected-tokens:100000}")
+    private int expectedTokens;
+
+    @Value("${app.jwt.revocation.poll-overlap-ms:60000}")
+    private long pollOverlapMs;
+
+    // Revoked token -> expiry time in epoch millis
+    private final ConcurrentHashMap<String, Long> revokedTokens = new ConcurrentHashMap<>();
+
+    private volatile BloomFilter bloomFilter;
+
+    // Start of the last poll; the next poll looks back a little further than this
+    private volatile long lastPollMillis;
+
+    @PostConstruct
+    void warmLoad() {
+        bloomFilter = new BloomFilter(expectedTokens);
+        lastPollMillis = System.currentTimeMillis();
+        List<BlacklistedToken> tokens = blacklistTokenRepository.findByExpiryDateAfter(new Date());
+        tokens.forEach(this::add);
+        logger.info("Loaded {} revoked tokens", tokens.size());
+    }
+
+    /**
+     * Check whether a token has been revoked
+     */
+    public boolean isRevoked(String token) {
+        if (!bloomFilter.mightContain(token)) {
+            return false;
+        }
+        return revokedTokens.containsKey(token);
+    }
+
+    /**
+     * Record a token revoked on this node
+     */
+    public synchronized void revoke(String token, Date expiryDate) {
+        revokedTokens.put(token, expiryDate.getTime());
+        bloomFilter.put(token);
+    }
+
+    /**
+     * Pick up tokens revoked on other nodes since the last poll. Ids and
+     * timestamps are assigned before commit, so a row can become visible
+     * after later ones; the poll re-reads an overlap window to catch it, and
+     * tokens already known are skipped.
+     */
+    @Scheduled(fixedDelayString = "${app.jwt.revocation.poll-interval-ms:10000}")
+    public void catchUp() {
+        long now = System.currentTimeMillis();
+        List<BlacklistedToken> tokens = blacklistTokenRepository
+                .findByCreatedAtGreaterThanEqual(new Date(lastPollMillis - pollOverlapMs));
+        for (BlacklistedToken token : tokens) {
+            if (token.getExpiryDate().getTime() > now && !revokedTokens.containsKey(token.getToken())) {
+                add(token);
+            }
+        }
+        lastPollMillis = now;
+    }
+
+    /**
+     * Delete expired tokens from the table and the in-memory store
+     */
+    @Scheduled(cron = "0 15 * * * *") // Runs every hour
+    public void purgeExpired() {
+        Date now = new Date();
+        int purged = blacklistTokenRepository.deleteByExpiryDateBefore(now);
+        rebuild(now.getTime());
+        logger.info("Purged {} expired blacklisted tokens", purged);
+    }
+
+    private void add(BlacklistedToken token) {
+        revoke(token.getToken(), token.getExpiryDate());
+    }
+
+    // Bloom filters cannot remove entries, so drop expired tokens and start a fresh filter.
+    // The table is re-read as well, so anything a poll missed is picked up here.
+    private synchronized void rebuild(long now) {
+        revokedTokens.values().removeIf(expiry -> expiry <= now);
+        blacklistTokenRepository.findByExpiryDateAfter(new Date(now))
+                .forEach(token -> revokedTokens.put(token.getToken(), token.getExpiryDate().getTime()));
+        BloomFilter rebuilt = new BloomFilter(Math.max(expectedTokens, revokedTokens.size() * 2));
+        revokedTokens.keySet().forEach(rebuilt::put);
+        bloomFilter = rebuilt;
+    }
+
+    /**
+     * Fixed-size Bloom filter sized for roughly a 1% false-positive rate
+     */
+    static final class BloomFilter {
+        private static final int HASH_FUNCTIONS = 7;
+
+        private final AtomicLongArray bits;
+        private final long bitCount;
+
+        BloomFilter(int expectedInsertions) {
+            long requiredBits = Math.max(64L, (long) (expectedInsertions * 9.6));
+            int words = (int) ((requiredBits + 63) / 64);
+            this.bits = new AtomicLongArray(words);
+            this.bitCount = (long) words * 64;
+        }
+
+        void put(String value) {
+            long hash1 = value.hashCode();
+            long hash2 = fnv1a(value);
+            for (int i = 0; i < HASH_FUNCTIONS; i++) {
+                long bit = Math.floorMod(hash1 + i * hash2, bitCount);
+                int word = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long current;
+                do {
+                    current = bits.get(word);
+                    if ((current & mask) != 0) {
+                        break;
+                    }
+                } while (!bits.compareAndSet(word, current, current | mask));
+            }
+        }
+
+        boolean mightContain(String value) {
+            long hash1 = value.hashCode();
+            long hash2 = fnv1a(value);
+            for (int i = 0; i < HASH_FUNCTIONS; i++) {
+                long bit = Math.floorMod(hash1 + i * hash2, bitCount);
+                if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static long fnv1a(String value) {
+            long hash = 0xcbf29ce484222325L;
+            for (int i = 0; i < value.length(); i++) {
+                hash ^= value.charAt(i);
+                hash *= 0x100000001b3L;
+            }
+            return hash | 1L; // Odd step so the probe sequence never collapses
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.sap.fsad.leaveApp.security;
+
+import com.sap.fsad.leaveApp.event.UserSecurityChangedEvent;
+import com.sap.fsad.leaveApp.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Current security version per user id. A token is accepted only while the
+ * version it was issued with is still the user's current one.
+ */
+@Component
+public class UserSecurityVersionRegistry {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final ConcurrentHashMap<Long, Integer> versions = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void load() {
+        refresh();
+    }
+
+    /**
+     * Reload versions from the database, picking up changes made on other nodes
+     */
+    @Scheduled(fixedDelayString = "${app.jwt.security-version.refresh-interval-ms:30000}")
+    public void refresh() {
+        for (Object[] row : userRepository.findAllSecurityVersions()) {
+            versions.merge((Long) row[0], (Integer) row[1], Math::max);
+        }
+    }
+
+    public boolean isCurrent(Long userId, int tokenVersion) {
+        return tokenVersion >= versions.getOrDefault(userId, 0);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserSecurityChanged(UserSecurityChangedEvent event) {
+        versions.merge(event.getUserId(), event.getSecurityVersion(), Math::max);
+    }
+}
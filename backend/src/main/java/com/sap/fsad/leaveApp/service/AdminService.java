@@ -5,27 +5,27 @@ import com.sap.fsad.leaveApp.dto.response.DashboardStatsResponse;
 import com.sap.fsad.leaveApp.dto.request.UserUpdateRequest;
 import com.sap.fsad.leaveApp.dto.response.ApiResponse;
 import com.sap.fsad.leaveApp.dto.response.UserResponse;
+import com.sap.fsad.leaveApp.event.LeaveDataChangedEvent;
+import com.sap.fsad.leaveApp.event.LeavePolicyChangedEvent;
+import com.sap.fsad.leaveApp.event.UserSecurityChangedEvent;
 import com.sap.fsad.leaveApp.exception.BadRequestException;
 import com.sap.fsad.leaveApp.exception.ResourceNotFoundException;
 import com.sap.fsad.leaveApp.model.AuditLog;
-import com.sap.fsad.leaveApp.model.LeaveApplication;
 import com.sap.fsad.leaveApp.model.LeavePolicy;
 import com.sap.fsad.leaveApp.model.User;
-import com.sap.fsad.leaveApp.model.enums.LeaveStatus;
 import com.sap.fsad.leaveApp.model.enums.UserRole;
 import com.sap.fsad.leaveApp.repository.AuditLogRepository;
 import com.sap.fsad.leaveApp.repository.LeaveApplicationRepository;
 import com.sap.fsad.leaveApp.repository.LeavePolicyRepository;
 import com.sap.fsad.leaveApp.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -49,6 +49,15 @@ public class AdminService {
     @Autowired
     private AuditLogRepository auditLogRepository;
 
+    @Autowired
+    private LeaveUsageAggregator leaveUsageAggregator;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private DashboardStatsCache dashboardStatsCache;
+
     public DashboardStatsResponse getDashboardStats() {
         User currentUser = userService.getCurrentUser();
 
@@ -57,32 +66,8 @@ public class AdminService {
             throw new BadRequestException("You don't have permission to access admin dashboard");
         }
 
-        DashboardStatsResponse stats = new DashboardStatsResponse();
-
-        // Total users count
-        stats.setTotalUsers(userRepository.count());
-
-        // Active users count
-        stats.setActiveUsers(userRepository.findByIsActiveTrue().size());
-
-        // Total pending leaves
-        stats.setPendingLeaves(leaveApplicationRepository.countByUserIdAndStatus(null, LeaveStatus.PENDING));
-
-        // Role distribution
-        Map<UserRole, Long> roleDistribution = new HashMap<>();
-        for (UserRole role : UserRole.values()) {
-            roleDistribution.put(role, (long) userRepository.findByRole(role).size());
-        }
-        stats.setRoleDistribution(roleDistribution);
-
-        // Recent leave applications
-        List<LeaveApplication> recentLeaves = leaveApplicationRepository.findAll().stream()
-                .sorted((l1, l2) -> l2.getCreatedAt().compareTo(l1.getCreatedAt()))
-                .limit(5)
-                .collect(Collectors.toList());
-        stats.setRecentLeaveApplications(recentLeaves);
-
-        return stats;
+        // Served from a snapshot refreshed in the background
+        return dashboardStatsCache.getSnapshot();
     }
 
     private void logAdminAction(String action, String details) {
@@ -125,9 +110,12 @@ public class AdminService {
 
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("User", "id", userId));
+        boolean securityChanged = false;
+        boolean reportDataChanged = false;
 
         // Update user fields
         if (request.getFullName() != null) {
+            reportDataChanged |= !request.getFullName().equals(user.getFullName());
             user.setFullName(request.getFullName());
         }
 
@@ -141,6 +129,10 @@ public class AdminService {
         }
 
         if (request.getDepartment() != null) {
+            if (!request.getDepartment().equals(user.getDepartment())) {
+                leaveUsageAggregator.moveUser(user.getId(), user.getDepartment(), request.getDepartment());
+                reportDataChanged = true;
+            }
             user.setDepartment(request.getDepartment());
         }
 
@@ -149,6 +141,7 @@ public class AdminService {
             if (!request.getRoles().contains(UserRole.ADMIN) && !currentUser.getRoles().contains(UserRole.ADMIN)) {
                 throw new BadRequestException("You don't have permission to assign this role");
             }
+            securityChanged |= !request.getRoles().equals(user.getRoles());
             user.setRoles(request.getRoles());
         }
 
@@ -166,15 +159,32 @@ public class AdminService {
 
         if (request.getPassword() != null) {
             user.setPassword(passwordEncoder.encode(request.getPassword()));
+            securityChanged = true;
         }
 
         if (request.getIsActive() != null) {
+            securityChanged |= request.getIsActive() != user.isActive();
             user.setActive(request.getIsActive());
         }
 
+        // Invalidate tokens issued before this change
+        if (securityChanged) {
+            user.setSecurityVersion(user.getSecurityVersion() + 1);
+        }
+
         user.setUpdatedAt(LocalDateTime.now());
         User updatedUser = userRepository.save(user);
 
+        if (securityChanged) {
+            eventPublisher.publishEvent(
+                    new UserSecurityChangedEvent(updatedUser.getId(), updatedUser.getSecurityVersion()));
+        }
+
+        // Leave reports show the employee name and department
+        if (reportDataChanged) {
+            eventPublisher.publishEvent(new LeaveDataChangedEvent(updatedUser.getId(), null));
+        }
+
         logAdminAction("UPDATE_USER_DETAILS",
                 "USER ID: " + updatedUser.getId());
 
@@ -218,6 +228,7 @@ public class AdminService {
         leavePolicy.setUpdatedAt(LocalDateTime.now());
 
         LeavePolicy savedPolicy = leavePolicyRepository.save(leavePolicy);
+        eventPublisher.publishEvent(new LeavePolicyChangedEvent(savedPolicy.getId()));
 
         logAdminAction(request.getId() == null ? "CREATE_LEAVE_POLICY" : "UPDATE_LEAVE_POLICY",
                 "Policy ID: " + savedPolicy.getId() + ", Type: " + savedPolicy.getLeaveType());
@@ -275,6 +286,7 @@ public class AdminService {
             leavePolicy.setIsActive(false);
             leavePolicy.setUpdatedAt(LocalDateTime.now());
             leavePolicyRepository.save(leavePolicy);
+            eventPublisher.publishEvent(new LeavePolicyChangedEvent(id));
             return new ApiResponse(true, "Leave policy marked as inactive successfully");
         }
 
@@ -282,6 +294,7 @@ public class AdminService {
                 "Policy ID: " + leavePolicy.getId() + ", Type: " + leavePolicy.getLeaveType());
 
         leavePolicyRepository.delete(leavePolicy);
+        eventPublisher.publishEvent(new LeavePolicyChangedEvent(id));
         return new ApiResponse(true, "Leave policy deleted successfully");
     }
 
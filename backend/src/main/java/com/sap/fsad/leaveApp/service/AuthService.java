@@ -8,18 +8,16 @@ import com.sap.fsad.leaveApp.dto.response.JwtResponse;
 import com.sap.fsad.leaveApp.exception.BadRequestException;
 import com.sap.fsad.leaveApp.exception.ResourceNotFoundException;
 import com.sap.fsad.leaveApp.model.User;
-import com.sap.fsad.leaveApp.model.enums.UserRole;
 import com.sap.fsad.leaveApp.model.BlacklistedToken;
 import com.sap.fsad.leaveApp.model.LeaveBalance;
 import com.sap.fsad.leaveApp.model.LeavePolicy;
 import com.sap.fsad.leaveApp.repository.BlacklistTokenRepository;
 import com.sap.fsad.leaveApp.repository.LeaveBalanceRepository;
-import com.sap.fsad.leaveApp.repository.LeavePolicyRepository;
 import com.sap.fsad.leaveApp.repository.UserRepository;
 import com.sap.fsad.leaveApp.security.CustomUserDetails;
 import com.sap.fsad.leaveApp.security.JwtTokenProvider;
+import com.sap.fsad.leaveApp.security.TokenRevocationStore;
 
-import jakarta.mail.MessagingException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -31,7 +29,10 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 @Service
@@ -50,7 +51,7 @@ public class AuthService {
     private LeaveBalanceRepository leaveBalanceRepository;
 
     @Autowired
-    private LeavePolicyRepository leavePolicyRepository;
+    private LeavePolicyRegistry leavePolicyRegistry;
 
     @Autowired
     private PasswordEncoder passwordEncoder;
@@ -61,9 +62,15 @@ public class AuthService {
     @Autowired
     private EmailService emailService;
 
+    @Autowired
+    private UserService userService;
+
     @Autowired
     private BlacklistTokenRepository blacklistTokenRepository; // Optional: For token blacklisting
 
+    @Autowired
+    private TokenRevocationStore tokenRevocationStore;
+
     public ApiResponse logout(String token) {
         // Extract the token without the "Bearer " prefix
         String jwt = token.replace("Bearer ", "");
@@ -71,7 +78,10 @@ public class AuthService {
         BlacklistedToken blacklistedToken = new BlacklistedToken();
         blacklistedToken.setToken(jwt);
         blacklistedToken.setExpiryDate(tokenProvider.getExpiryDateFromToken(jwt));
+        blacklistedToken.setCreatedAt(new Date());
         blacklistTokenRepository.save(blacklistedToken);
+        tokenRevocationStore.revoke(jwt, blacklistedToken.getExpiryDate());
+        tokenProvider.evictVerifiedToken(jwt);
 
         return new ApiResponse(true, "User logged out successfully");
     }
@@ -166,16 +176,19 @@ public class AuthService {
 
     @Transactional
     public List<User> register(List<RegisterRequest> registerRequests) {
-        List<User> registeredUsers = new ArrayList<>();
+        List<User> users = new ArrayList<>();
+        Set<String> usernames = new HashSet<>();
+        Set<String> emails = new HashSet<>();
 
         for (RegisterRequest registerRequest : registerRequests) {
-            // Check if username already exists
-            if (userRepository.existsByUsername(registerRequest.getUsername())) {
+            // Check if username already exists, in the database or earlier in this batch
+            if (!usernames.add(registerRequest.getUsername())
+                    || userRepository.existsByUsername(registerRequest.getUsername())) {
                 throw new BadRequestException("Username is already taken: " + registerRequest.getUsername());
             }
 
-            // Check if email already exists
-            if (userRepository.existsByEmail(registerRequest.getEmail())) {
+            // Check if email already exists, in the database or earlier in this batch
+            if (!emails.add(registerRequest.getEmail()) || userRepository.existsByEmail(registerRequest.getEmail())) {
                 throw new BadRequestException("Email is already in use: " + registerRequest.getEmail());
             }
 
@@ -205,14 +218,17 @@ public class AuthService {
             user.setActive(true);
             user.setCreatedAt(LocalDateTime.now());
             user.setUpdatedAt(LocalDateTime.now());
+            users.add(user);
+        }
 
-            User savedUser = userRepository.save(user);
-
-            // Initialize leave balances based on leave policy
-            initializeLeaveBalances(savedUser);
+        // Users, then their balances, are inserted in JDBC batches at flush
+        List<User> registeredUsers = userRepository.saveAll(users);
 
-            registeredUsers.add(savedUser);
+        List<LeaveBalance> balances = new ArrayList<>();
+        for (User user : registeredUsers) {
+            balances.addAll(buildLeaveBalances(user));
         }
+        leaveBalanceRepository.saveAll(balances);
 
         return registeredUsers;
     }
@@ -221,26 +237,27 @@ public class AuthService {
      * Initialize leave balances for a new user based on leave policies
      */
     private void initializeLeaveBalances(User user) {
-        List<LeavePolicy> policies = new ArrayList<>();
-        for (UserRole role : user.getRoles()) {
-            policies.addAll(leavePolicyRepository.findByApplicableRolesAndActive(role));
-        }
+        leaveBalanceRepository.saveAll(buildLeaveBalances(user));
+    }
+
+    private List<LeaveBalance> buildLeaveBalances(User user) {
+        List<LeavePolicy> policies = leavePolicyRegistry.getPoliciesForRoles(user.getRoles());
         int currentYear = LocalDateTime.now().getYear();
 
+        List<LeaveBalance> balances = new ArrayList<>();
         for (LeavePolicy policy : policies) {
             LeaveBalance leaveBalance = new LeaveBalance(
                     user,
                     policy.getLeaveType(),
                     policy.getAnnualCredit());
             leaveBalance.setYear(currentYear);
-            leaveBalanceRepository.save(leaveBalance);
+            balances.add(leaveBalance);
         }
+        return balances;
     }
 
     public ApiResponse changePassword(PasswordChangeRequest passwordChangeRequest) {
-        User currentUser = userRepository.findByUsername(
-                SecurityContextHolder.getContext().getAuthentication().getName())
-                .orElseThrow(() -> new ResourceNotFoundException("User", "username", "current user"));
+        User currentUser = userService.getCurrentUser();
 
         // Validate current password
         if (!passwordEncoder.matches(passwordChangeRequest.getCurrentPassword(), currentUser.getPassword())) {
@@ -264,6 +281,8 @@ public class AuthService {
         return new ApiResponse(true, "Password changed successfully");
     }
 
+    // The reset token and its email are saved together
+    @Transactional
     public void forgotPassword(String email) {
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new ResourceNotFoundException("User", "email", email));
@@ -273,12 +292,7 @@ public class AuthService {
         userRepository.save(user);
 
         String resetLink = "http://localhost:8080/api/auth/reset-password?token=" + resetToken;
-        try {
-            emailService.sendEmail(user.getEmail(), "Reset Password",
-                    "Click the link to reset your password: " + resetLink);
-        } catch (MessagingException e) {
-            throw new BadRequestException("Failed to send reset password email");
-        }
+        emailService.sendResetPasswordEmail(user.getEmail(), resetLink);
     }
 
     public void resetPassword(String token, String newPassword) {
@@ -0,0 +1,24 @@
+package com.sap.fsad.leaveApp.service;
+
+import com.sap.fsad.leaveApp.model.User;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.annotation.RequestScope;
+
+/**
+ * Holds the authenticated user for the duration of one HTTP request so every
+ * service in the request shares a single lookup.
+ */
+@Component
+@RequestScope
+public class CurrentUserContext {
+
+    private User user;
+
+    public User getUser() {
+        return user;
+    }
+
+    public void setUser(User user) {
+        this.user = user;
+    }
+}
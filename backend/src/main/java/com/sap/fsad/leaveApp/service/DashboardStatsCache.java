@@ -0,0 +1,90 @@
+package com.sap.fsad.leaveApp.service;
+
+import com.sap.fsad.leaveApp.dto.response.DashboardStatsResponse;
+import com.sap.fsad.leaveApp.model.enums.LeaveStatus;
+import com.sap.fsad.leaveApp.model.enums.UserRole;
+import com.sap.fsad.leaveApp.repository.LeaveApplicationRepository;
+import com.sap.fsad.leaveApp.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Admin dashboard figures computed with aggregate queries and kept as a
+ * snapshot that is refreshed in the background, so loading the dashboard
+ * never queries the database.
+ */
+@Component
+public class DashboardStatsCache {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private LeaveApplicationRepository leaveApplicationRepository;
+
+    @Value("${app.admin.dashboard.recent-leaves:5}")
+    private int recentLeaves;
+
+    private volatile DashboardStatsResponse snapshot;
+
+    /**
+     * Get the latest snapshot, computing the first one on demand
+     */
+    public DashboardStatsResponse getSnapshot() {
+        DashboardStatsResponse current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                current = snapshot;
+                if (current == null) {
+                    current = compute();
+                    snapshot = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Recompute the snapshot in the background
+     */
+    @Scheduled(fixedDelayString = "${app.admin.dashboard.refresh-interval-ms:30000}")
+    public void refresh() {
+        try {
+            snapshot = compute();
+        } catch (Exception e) {
+            // Keep serving the previous snapshot
+            logger.error("Failed to refresh dashboard stats: {}", e.getMessage());
+        }
+    }
+
+    private DashboardStatsResponse compute() {
+        DashboardStatsResponse stats = new DashboardStatsResponse();
+        stats.setTotalUsers(userRepository.count());
+        stats.setActiveUsers(userRepository.countByIsActiveTrue());
+        stats.setPendingLeaves(leaveApplicationRepository.countByStatus(LeaveStatus.PENDING));
+
+        Map<UserRole, Long> roleDistribution = new EnumMap<>(UserRole.class);
+        for (UserRole role : UserRole.values()) {
+            roleDistribution.put(role, 0L);
+        }
+        for (Object[] row : userRepository.countUsersByRole()) {
+            roleDistribution.put((UserRole) row[0], (Long) row[1]);
+        }
+        stats.setRoleDistribution(roleDistribution);
+
+        stats.setRecentLeaveApplications(leaveApplicationRepository.findRecent(PageRequest.of(0, recentLeaves)));
+        stats.setGeneratedAt(LocalDateTime.now());
+        return stats;
+    }
+}
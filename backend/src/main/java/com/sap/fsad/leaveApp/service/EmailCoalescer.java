@@ -0,0 +1,135 @@
+package com.sap.fsad.leaveApp.service;
+
+import com.sap.fsad.leaveApp.model.QueuedEmail;
+import com.sap.fsad.leaveApp.model.enums.EmailType;
+import com.sap.fsad.leaveApp.repository.QueuedEmailRepository;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Holds outgoing mail per recipient for a short window and sends what has
+ * gathered as one digest. Identical messages are sent once. Urgent types
+ * bypass the window and go out immediately. Held messages are rows in the
+ * email queue, so they survive a restart.
+ */
+@Component
+public class EmailCoalescer {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    @Autowired
+    private QueuedEmailRepository queuedEmailRepository;
+
+    @Autowired
+    private EmailQueueService emailQueueService;
+
+    // Renders the digests; lazy because EmailService hands messages to this class
+    @Lazy
+    @Autowired
+    private EmailService emailService;
+
+    // Self reference through the proxy so each digest is built in its own transaction
+    @Lazy
+    @Autowired
+    private EmailCoalescer self;
+
+    @Value("${app.email.coalesce.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.email.coalesce.window-ms:300000}")
+    private long windowMs;
+
+    @Value("${app.email.coalesce.max-items:50}")
+    private int maxItems;
+
+    @Value("${app.email.coalesce.urgent-types:RESET_PASSWORD}")
+    private Set<EmailType> urgentTypes;
+
+    /**
+     * Whether messages of this type wait for a digest
+     */
+    public boolean isCoalesced(EmailType type) {
+        // Password reset links are time-critical whatever the configuration says
+        return enabled && type != EmailType.RESET_PASSWORD && !urgentTypes.contains(type);
+    }
+
+    /**
+     * Hold a message for the recipient's next digest
+     */
+    public void add(String to, PendingEmail email) {
+        emailQueueService.hold(email.getType(), to, email.getSubject(), email.getSummary(), email.getContent());
+    }
+
+    /**
+     * Queue a digest for every recipient whose window has closed or whose
+     * digest is full
+     */
+    @Scheduled(fixedDelayString = "${app.email.coalesce.flush-interval-ms:10000}")
+    public void flushDue() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(Duration.ofMillis(windowMs));
+        for (String recipient : queuedEmailRepository.findRecipientsWithDueDigest(cutoff, maxItems)) {
+            try {
+                self.flush(recipient);
+            } catch (RuntimeException e) {
+                logger.error("Failed to queue email digest for {}: {}", recipient, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Replace the messages held for a recipient with one queued digest
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void flush(String recipient) {
+        // Rows locked by another node are skipped; that node sends them
+        List<QueuedEmail> held = queuedEmailRepository.findHeldForUpdate(recipient);
+        if (held.isEmpty()) {
+            return;
+        }
+
+        // Insertion ordered and free of identical messages
+        Set<PendingEmail> unique = new LinkedHashSet<>();
+        for (QueuedEmail email : held) {
+            unique.add(new PendingEmail(email.getType(), email.getSubject(), email.getSummary(), email.getContent()));
+        }
+        List<PendingEmail> emails = new ArrayList<>(unique);
+
+        if (emails.size() == 1) {
+            emailQueueService.enqueue(recipient, emails.get(0).getSubject(), emails.get(0).getContent());
+        } else {
+            emailQueueService.enqueue(recipient, "Leave Scheduler: " + emails.size() + " updates",
+                    emailService.renderDigest(emails));
+        }
+        queuedEmailRepository.deleteAllInBatch(held);
+    }
+
+    /**
+     * One message waiting for a digest. The summary is the line shown for it
+     * in the digest; the content is the full message, sent as is when it
+     * ends up alone in its batch.
+     */
+    @Data
+    @AllArgsConstructor
+    public static class PendingEmail {
+        private EmailType type;
+        private String subject;
+        private String summary;
+        private String content;
+    }
+}
@@ -0,0 +1,60 @@
+package com.sap.fsad.leaveApp.service;
+
+import com.sap.fsad.leaveApp.dto.response.EmailMetricsResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+@Component
+public class EmailDeliveryMetrics {
+
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder totalLatencyNanos = new LongAdder();
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+    @Lazy
+    @Autowired
+    @Qualifier("emailExecutor")
+    private ThreadPoolTaskExecutor emailExecutor;
+
+    public void recordSent(long latencyNanos) {
+        sent.increment();
+        totalLatencyNanos.add(latencyNanos);
+        maxLatencyNanos.accumulateAndGet(latencyNanos, Math::max);
+    }
+
+    public void recordFailure() {
+        failed.increment();
+    }
+
+    public void recordRejected() {
+        rejected.increment();
+    }
+
+    /**
+     * Get a point-in-time view of the delivery counters and executor state
+     */
+    public EmailMetricsResponse snapshot() {
+        long sentCount = sent.sum();
+        long averageLatencyMs = sentCount == 0 ? 0
+                : TimeUnit.NANOSECONDS.toMillis(totalLatencyNanos.sum() / sentCount);
+
+        EmailMetricsResponse response = new EmailMetricsResponse();
+        response.setQueueDepth(emailExecutor.getThreadPoolExecutor().getQueue().size());
+        response.setActiveWorkers(emailExecutor.getActiveCount());
+        response.setSent(sentCount);
+        response.setFailed(failed.sum());
+        response.setRejected(rejected.sum());
+        response.setAverageLatencyMs(averageLatencyMs);
+        response.setMaxLatencyMs(TimeUnit.NANOSECONDS.toMillis(maxLatencyNanos.get()));
+        return response;
+    }
+}
@@ -0,0 +1,97 @@
+package com.sap.fsad.leaveApp.service;
+
+import com.sap.fsad.leaveApp.event.EmailEnqueuedEvent;
+import com.sap.fsad.leaveApp.model.QueuedEmail;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Sends queued emails after each committing transaction and on a fixed poll.
+ * Failed sends are rescheduled in the queue rather than retried in place, so
+ * no thread sleeps waiting for the mail server to come back.
+ */
+@Component
+public class EmailQueueRelay {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final ReentrantLock drainLock = new ReentrantLock();
+
+    @Autowired
+    private EmailQueueService emailQueueService;
+
+    @Autowired
+    private EmailService emailService;
+
+    @Autowired
+    @Qualifier("emailExecutor")
+    private TaskExecutor emailExecutor;
+
+    @Value("${app.email.queue.batch-size:50}")
+    private int batchSize;
+
+    @Value("${app.email.queue.retention-days:7}")
+    private int retentionDays;
+
+    @Async("emailRelayExecutor")
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEmailEnqueued(EmailEnqueuedEvent event) {
+        drain();
+    }
+
+    @Scheduled(fixedDelayString = "${app.email.queue.poll-interval-ms:5000}")
+    public void poll() {
+        drain();
+    }
+
+    @Scheduled(cron = "0 45 2 * * *") // Runs daily at 02:45
+    public void purgeSent() {
+        int purged = emailQueueService.purgeSentBefore(LocalDateTime.now().minusDays(retentionDays));
+        if (purged > 0) {
+            logger.info("Purged {} sent emails", purged);
+        }
+    }
+
+    /**
+     * Claim due emails batch by batch and hand them to the email executor
+     */
+    public void drain() {
+        // Another thread on this node is already draining; it will pick up our rows too
+        if (!drainLock.tryLock()) {
+            return;
+        }
+        try {
+            List<QueuedEmail> batch;
+            do {
+                batch = emailQueueService.claimBatch(batchSize);
+                batch.forEach(email -> emailExecutor.execute(() -> send(email)));
+            } while (batch.size() == batchSize);
+        } catch (Exception e) {
+            logger.error("Failed to relay queued emails: {}", e.getMessage());
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    private void send(QueuedEmail email) {
+        try {
+            emailService.transmit(email.getRecipient(), email.getSubject(), email.getContent());
+        } catch (Exception e) {
+            emailQueueService.markFailed(email.getId(), email.getNextAttemptAt(), e.getMessage());
+            return;
+        }
+        emailQueueService.markSent(email.getId(), email.getNextAttemptAt());
+    }
+}
@@ -0,0 +1,216 @@
+package com.sap.fsad.leaveApp.service;
+
+import com.sap.fsad.leaveApp.dto.response.ApiResponse;
+import com.sap.fsad.leaveApp.dto.response.QueuedEmailResponse;
+import com.sap.fsad.leaveApp.event.EmailEnqueuedEvent;
+import com.sap.fsad.leaveApp.exception.BadRequestException;
+import com.sap.fsad.leaveApp.exception.ResourceNotFoundException;
+import com.sap.fsad.leaveApp.model.QueuedEmail;
+import com.sap.fsad.leaveApp.model.enums.EmailQueueStatus;
+import com.sap.fsad.leaveApp.model.enums.EmailType;
+import com.sap.fsad.leaveApp.repository.QueuedEmailRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+@Service
+public class EmailQueueService {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    @Autowired
+    private QueuedEmailRepository queuedEmailRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.email.queue.max-attempts:6}")
+    private int maxAttempts;
+
+    @Value("${app.email.queue.initial-backoff-ms:30000}")
+    private long initialBackoffMs;
+
+    @Value("${app.email.queue.max-backoff-ms:3600000}")
+    private long maxBackoffMs;
+
+    @Value("${app.email.queue.lease-ms:300000}")
+    private long leaseMs;
+
+    /**
+     * Store an email to be sent by the relay
+     */
+    @Transactional
+    public QueuedEmail enqueue(String to, String subject, String content) {
+        QueuedEmail email = newEmail(to, subject, content, EmailQueueStatus.PENDING);
+        email.setNextAttemptAt(email.getCreatedAt());
+
+        QueuedEmail savedEmail = queuedEmailRepository.save(email);
+        eventPublisher.publishEvent(new EmailEnqueuedEvent(savedEmail.getId()));
+        return savedEmail;
+    }
+
+    /**
+     * Store an email to go out in the recipient's next digest
+     */
+    @Transactional
+    public QueuedEmail hold(EmailType type, String to, String subject, String summary, String content) {
+        QueuedEmail email = newEmail(to, subject, content, EmailQueueStatus.HELD);
+        email.setType(type);
+        email.setSummary(summary);
+        return queuedEmailRepository.save(email);
+    }
+
+    /**
+     * Claim the emails that are due. Claimed rows are not handed out again
+     * until the lease runs out, so a node that dies mid-send only delays
+     * them. The lease end left in nextAttemptAt identifies the claim when
+     * the outcome is recorded.
+     */
+    @Transactional
+    public List<QueuedEmail> claimBatch(int batchSize) {
+        LocalDateTime now = LocalDateTime.now();
+        // Stored to the microsecond, so truncate to compare equal with the column later
+        LocalDateTime lease = now.plus(Duration.ofMillis(leaseMs)).truncatedTo(ChronoUnit.MICROS);
+        List<QueuedEmail> emails = queuedEmailRepository.findDueForUpdate(now, PageRequest.of(0, batchSize));
+        for (QueuedEmail email : emails) {
+            email.setNextAttemptAt(lease);
+            email.setUpdatedAt(now);
+        }
+        return emails;
+    }
+
+    /**
+     * Mark a claimed email sent, unless its lease ran out and another relay
+     * has claimed it since
+     */
+    @Transactional
+    public void markSent(Long id, LocalDateTime lease) {
+        if (queuedEmailRepository.markSent(id, lease, LocalDateTime.now()) == 0) {
+            logger.warn("Email {} was sent after its lease ran out and may be sent again", id);
+        }
+    }
+
+    /**
+     * Record a failed attempt and schedule the next one, or give up once the
+     * attempts are used. Ignored if the lease ran out and another relay has
+     * claimed the email since.
+     */
+    @Transactional
+    public void markFailed(Long id, LocalDateTime lease, String error) {
+        QueuedEmail email = queuedEmailRepository.findById(id).orElse(null);
+        if (email == null || email.getStatus() != EmailQueueStatus.PENDING
+                || !lease.equals(email.getNextAttemptAt())) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        email.setAttempts(email.getAttempts() + 1);
+        email.setLastError(error != null && error.length() > 1000 ? error.substring(0, 1000) : error);
+        email.setUpdatedAt(now);
+        if (email.getAttempts() >= maxAttempts) {
+            email.setStatus(EmailQueueStatus.DEAD);
+            email.setNextAttemptAt(null);
+            logger.error("Giving up on email {} to {} after {} attempts: {}", id, email.getRecipient(),
+                    email.getAttempts(), error);
+        } else {
+            email.setNextAttemptAt(now.plus(Duration.ofMillis(backoffMs(email.getAttempts()))));
+            logger.warn("Email {} to {} failed on attempt {}, retrying at {}: {}", id, email.getRecipient(),
+                    email.getAttempts(), email.getNextAttemptAt(), error);
+        }
+    }
+
+    /**
+     * Get dead emails, most recently failed first
+     */
+    public List<QueuedEmailResponse> getDeadEmails(int page, int size) {
+        return queuedEmailRepository
+                .findByStatusOrderByUpdatedAtDesc(EmailQueueStatus.DEAD, PageRequest.of(page, size))
+                .stream()
+                .map(this::convertToResponse)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Put a dead email back in the queue with a fresh set of attempts
+     */
+    @Transactional
+    public ApiResponse replay(Long id) {
+        QueuedEmail email = queuedEmailRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("QueuedEmail", "id", id));
+        if (email.getStatus() != EmailQueueStatus.DEAD) {
+            throw new BadRequestException("Only dead emails can be replayed");
+        }
+
+        email.setStatus(EmailQueueStatus.PENDING);
+        email.setAttempts(0);
+        email.setNextAttemptAt(LocalDateTime.now());
+        email.setUpdatedAt(LocalDateTime.now());
+        eventPublisher.publishEvent(new EmailEnqueuedEvent(id));
+        return new ApiResponse(true, "Email " + id + " queued for delivery");
+    }
+
+    /**
+     * Put every dead email back in the queue
+     */
+    @Transactional
+    public ApiResponse replayAll() {
+        int replayed = queuedEmailRepository.replayAllDead(LocalDateTime.now());
+        if (replayed > 0) {
+            eventPublisher.publishEvent(new EmailEnqueuedEvent(null));
+        }
+        return new ApiResponse(true, replayed + " dead email(s) queued for delivery");
+    }
+
+    /**
+     * Remove sent emails older than the given time
+     */
+    @Transactional
+    public int purgeSentBefore(LocalDateTime before) {
+        return queuedEmailRepository.deleteSentBefore(before);
+    }
+
+    /**
+     * Exponential backoff with equal jitter: half the delay is fixed and the
+     * other half random, so messages that failed together spread out
+     */
+    private long backoffMs(int attempts) {
+        long delay = Math.min(maxBackoffMs, initialBackoffMs << Math.min(attempts - 1, 20));
+        return delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+    }
+
+    private QueuedEmail newEmail(String to, String subject, String content, EmailQueueStatus status) {
+        QueuedEmail email = new QueuedEmail();
+        email.setRecipient(to);
+        email.setSubject(subject);
+        email.setContent(content);
+        email.setStatus(status);
+        email.setCreatedAt(LocalDateTime.now());
+        email.setUpdatedAt(email.getCreatedAt());
+        return email;
+    }
+
+    private QueuedEmailResponse convertToResponse(QueuedEmail email) {
+        QueuedEmailResponse response = new QueuedEmailResponse();
+        response.setId(email.getId());
+        response.setRecipient(email.getRecipient());
+        response.setSubject(email.getSubject());
+        response.setStatus(email.getStatus());
+        response.setAttempts(email.getAttempts());
+        response.setLastError(email.getLastError());
+        response.setCreatedAt(email.getCreatedAt());
+        response.setUpdatedAt(email.getUpdatedAt());
+        return response;
+    }
+}
@@ -4,14 +4,12 @@ import com.sap.fsad.leaveApp.model.LeaveApplication;
 import com.sap.fsad.leaveApp.model.User;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import com.sap.fsad.leaveApp.model.enums.EmailType;
 import com.sap.fsad.leaveApp.model.enums.LeaveType;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.mail.MailException;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
-import org.springframework.retry.annotation.Retryable;
-import org.springframework.retry.annotation.Backoff;
-import org.springframework.retry.annotation.Recover;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.thymeleaf.TemplateEngine;
 import org.thymeleaf.context.Context;
@@ -19,6 +17,7 @@ import org.thymeleaf.context.Context;
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @Service
@@ -32,200 +31,239 @@ public class EmailService {
     @Autowired
     private TemplateEngine templateEngine;
 
+    @Autowired
+    private EmailDeliveryMetrics emailDeliveryMetrics;
+
+    @Autowired
+    private EmailCoalescer emailCoalescer;
+
+    @Autowired
+    private EmailQueueService emailQueueService;
+
     /**
      * Send email with leave application details to manager
      */
-    @Async
     public void sendLeaveApplicationEmail(LeaveApplication leaveApplication) {
-        try {
-            User employee = leaveApplication.getUser();
-            User manager = employee.getManager();
-
-            if (manager == null || manager.getEmail() == null) {
-                return; // Skip if manager email is not available
-            }
-
-            Map<String, Object> templateVariables = new HashMap<>();
-            templateVariables.put("managerName", manager.getFullName());
-            templateVariables.put("employeeName", employee.getFullName());
-            templateVariables.put("leaveType", leaveApplication.getLeaveType());
-            templateVariables.put("startDate", leaveApplication.getStartDate());
-            templateVariables.put("endDate", leaveApplication.getEndDate());
-            templateVariables.put("numberOfDays", leaveApplication.getNumberOfDays());
-            templateVariables.put("reason", leaveApplication.getReason());
-            templateVariables.put("applicationId", leaveApplication.getId());
-
-            String subject = "Leave Application: " + employee.getFullName();
-            String content = processTemplate("leave-application", templateVariables);
-
-            sendEmail(manager.getEmail(), subject, content);
-        } catch (Exception e) {
-            // Log the error but don't propagate - non-critical operation
-            logger.error("Failed to send leave application email: {}", e.getMessage());
+        User employee = leaveApplication.getUser();
+        User manager = employee.getManager();
+
+        if (manager == null || manager.getEmail() == null) {
+            return; // Skip if manager email is not available
+        }
+
+        Map<String, Object> templateVariables = new HashMap<>();
+        templateVariables.put("managerName", manager.getFullName());
+        templateVariables.put("employeeName", employee.getFullName());
+        templateVariables.put("leaveType", leaveApplication.getLeaveType());
+        templateVariables.put("startDate", leaveApplication.getStartDate());
+        templateVariables.put("endDate", leaveApplication.getEndDate());
+        templateVariables.put("numberOfDays", leaveApplication.getNumberOfDays());
+        templateVariables.put("reason", leaveApplication.getReason());
+        templateVariables.put("applicationId", leaveApplication.getId());
+
+        String subject = "Leave Application: " + employee.getFullName();
+        String content = renderOrNull("leave-application", templateVariables);
+        if (content == null) {
+            return;
         }
+        String summary = employee.getFullName() + " has applied for " + leaveApplication.getNumberOfDays()
+                + " days of " + leaveApplication.getLeaveType() + " leave from "
+                + leaveApplication.getStartDate() + " to " + leaveApplication.getEndDate() + ".";
+
+        deliver(EmailType.LEAVE_APPLICATION, manager.getEmail(), subject, summary, content);
     }
 
     /**
      * Send email with leave approval details to employee
      */
-    @Async
     public void sendLeaveApprovedEmail(LeaveApplication leaveApplication) {
-        try {
-            User employee = leaveApplication.getUser();
-            User manager = leaveApplication.getApprovedBy();
-
-            if (employee.getEmail() == null) {
-                return; // Skip if employee email is not available
-            }
-
-            Map<String, Object> templateVariables = new HashMap<>();
-            templateVariables.put("employeeName", employee.getFullName());
-            templateVariables.put("managerName", manager != null ? manager.getFullName() : "Your manager");
-            templateVariables.put("leaveType", leaveApplication.getLeaveType());
-            templateVariables.put("startDate", leaveApplication.getStartDate());
-            templateVariables.put("endDate", leaveApplication.getEndDate());
-            templateVariables.put("numberOfDays", leaveApplication.getNumberOfDays());
-            templateVariables.put("remarks", leaveApplication.getRemarks());
-            templateVariables.put("applicationId", leaveApplication.getId());
-
-            String subject = "Leave Approved: " + leaveApplication.getLeaveType();
-            String content = processTemplate("leave-approved", templateVariables);
-
-            sendEmail(employee.getEmail(), subject, content);
-        } catch (Exception e) {
-            // Log the error but don't propagate - non-critical operation
-            logger.error("Failed to send leave approval email: {}", e.getMessage());
+        User employee = leaveApplication.getUser();
+        User manager = leaveApplication.getApprovedBy();
+
+        if (employee.getEmail() == null) {
+            return; // Skip if employee email is not available
+        }
+
+        Map<String, Object> templateVariables = new HashMap<>();
+        templateVariables.put("employeeName", employee.getFullName());
+        templateVariables.put("managerName", manager != null ? manager.getFullName() : "Your manager");
+        templateVariables.put("leaveType", leaveApplication.getLeaveType());
+        templateVariables.put("startDate", leaveApplication.getStartDate());
+        templateVariables.put("endDate", leaveApplication.getEndDate());
+        templateVariables.put("numberOfDays", leaveApplication.getNumberOfDays());
+        templateVariables.put("remarks", leaveApplication.getRemarks());
+        templateVariables.put("applicationId", leaveApplication.getId());
+
+        String subject = "Leave Approved: " + leaveApplication.getLeaveType();
+        String content = renderOrNull("leave-approved", templateVariables);
+        if (content == null) {
+            return;
         }
+        String summary = "Your application for " + leaveApplication.getNumberOfDays() + " days of "
+                + leaveApplication.getLeaveType() + " leave from " + leaveApplication.getStartDate() + " to "
+                + leaveApplication.getEndDate() + " has been approved.";
+
+        deliver(EmailType.LEAVE_APPROVED, employee.getEmail(), subject, summary, content);
     }
 
     /**
      * Send email with leave rejection details to employee
      */
-    @Async
     public void sendLeaveRejectedEmail(LeaveApplication leaveApplication) {
-        try {
-            User employee = leaveApplication.getUser();
-            User manager = leaveApplication.getApprovedBy();
-
-            if (employee.getEmail() == null) {
-                return; // Skip if employee email is not available
-            }
-
-            Map<String, Object> templateVariables = new HashMap<>();
-            templateVariables.put("employeeName", employee.getFullName());
-            templateVariables.put("managerName", manager != null ? manager.getFullName() : "Your manager");
-            templateVariables.put("leaveType", leaveApplication.getLeaveType());
-            templateVariables.put("startDate", leaveApplication.getStartDate());
-            templateVariables.put("endDate", leaveApplication.getEndDate());
-            templateVariables.put("numberOfDays", leaveApplication.getNumberOfDays());
-            templateVariables.put("remarks", leaveApplication.getRemarks());
-            templateVariables.put("applicationId", leaveApplication.getId());
-
-            String subject = "Leave Rejected: " + leaveApplication.getLeaveType();
-            String content = processTemplate("leave-rejected", templateVariables);
-
-            sendEmail(employee.getEmail(), subject, content);
-        } catch (Exception e) {
-            // Log the error but don't propagate - non-critical operation
-            logger.error("Failed to send leave rejection email: {}", e.getMessage());
+        User employee = leaveApplication.getUser();
+        User manager = leaveApplication.getApprovedBy();
+
+        if (employee.getEmail() == null) {
+            return; // Skip if employee email is not available
+        }
+
+        Map<String, Object> templateVariables = new HashMap<>();
+        templateVariables.put("employeeName", employee.getFullName());
+        templateVariables.put("managerName", manager != null ? manager.getFullName() : "Your manager");
+        templateVariables.put("leaveType", leaveApplication.getLeaveType());
+        templateVariables.put("startDate", leaveApplication.getStartDate());
+        templateVariables.put("endDate", leaveApplication.getEndDate());
+        templateVariables.put("numberOfDays", leaveApplication.getNumberOfDays());
+        templateVariables.put("remarks", leaveApplication.getRemarks());
+        templateVariables.put("applicationId", leaveApplication.getId());
+
+        String subject = "Leave Rejected: " + leaveApplication.getLeaveType();
+        String content = renderOrNull("leave-rejected", templateVariables);
+        if (content == null) {
+            return;
         }
+        String summary = "Your application for " + leaveApplication.getNumberOfDays() + " days of "
+                + leaveApplication.getLeaveType() + " leave from " + leaveApplication.getStartDate() + " to "
+                + leaveApplication.getEndDate() + " has been rejected.";
+
+        deliver(EmailType.LEAVE_REJECTED, employee.getEmail(), subject, summary, content);
     }
 
     /**
      * Send email when leave is withdrawn
      */
-    @Async
     public void sendLeaveWithdrawalEmail(LeaveApplication leaveApplication) {
-        try {
-            User employee = leaveApplication.getUser();
-            User manager = employee.getManager();
-
-            if (manager == null || manager.getEmail() == null) {
-                return; // Skip if manager email is not available
-            }
-
-            Map<String, Object> templateVariables = new HashMap<>();
-            templateVariables.put("managerName", manager.getFullName());
-            templateVariables.put("employeeName", employee.getFullName());
-            templateVariables.put("leaveType", leaveApplication.getLeaveType());
-            templateVariables.put("startDate", leaveApplication.getStartDate());
-            templateVariables.put("endDate", leaveApplication.getEndDate());
-            templateVariables.put("numberOfDays", leaveApplication.getNumberOfDays());
-            templateVariables.put("applicationId", leaveApplication.getId());
-
-            String subject = "Leave Application Withdrawn: " + employee.getFullName();
-            String content = processTemplate("leave-withdrawal", templateVariables);
-
-            sendEmail(manager.getEmail(), subject, content);
-        } catch (Exception e) {
-            // Log the error but don't propagate - non-critical operation
-            logger.error("Failed to send leave withdrawal email: {}", e.getMessage());
+        User employee = leaveApplication.getUser();
+        User manager = employee.getManager();
+
+        if (manager == null || manager.getEmail() == null) {
+            return; // Skip if manager email is not available
+        }
+
+        Map<String, Object> templateVariables = new HashMap<>();
+        templateVariables.put("managerName", manager.getFullName());
+        templateVariables.put("employeeName", employee.getFullName());
+        templateVariables.put("leaveType", leaveApplication.getLeaveType());
+        templateVariables.put("startDate", leaveApplication.getStartDate());
+        templateVariables.put("endDate", leaveApplication.getEndDate());
+        templateVariables.put("numberOfDays", leaveApplication.getNumberOfDays());
+        templateVariables.put("applicationId", leaveApplication.getId());
+
+        String subject = "Leave Application Withdrawn: " + employee.getFullName();
+        String content = renderOrNull("leave-withdrawal", templateVariables);
+        if (content == null) {
+            return;
         }
+        String summary = employee.getFullName() + " has withdrawn their application for "
+                + leaveApplication.getNumberOfDays() + " days of " + leaveApplication.getLeaveType()
+                + " leave from " + leaveApplication.getStartDate() + " to " + leaveApplication.getEndDate() + ".";
+
+        deliver(EmailType.LEAVE_WITHDRAWN, manager.getEmail(), subject, summary, content);
     }
 
     /**
      * Send email notification about annual leave credit
      */
-    @Async
     public void sendLeaveCreditEmail(User user) {
-        try {
-            if (user.getEmail() == null) {
-                return; // Skip if user email is not available
-            }
-
-            Map<String, Object> templateVariables = new HashMap<>();
-            templateVariables.put("userName", user.getFullName());
-            templateVariables.put("year", java.time.LocalDate.now().getYear());
+        if (user.getEmail() == null) {
+            return; // Skip if user email is not available
+        }
 
-            String subject = "Annual Leave Credit Notification";
-            String content = processTemplate("leave-credit", templateVariables);
+        Map<String, Object> templateVariables = new HashMap<>();
+        templateVariables.put("userName", user.getFullName());
+        templateVariables.put("year", java.time.LocalDate.now().getYear());
 
-            sendEmail(user.getEmail(), subject, content);
-        } catch (Exception e) {
-            // Log the error but don't propagate - non-critical operation
-            logger.error("Failed to send leave credit email to {}: {}", user.getEmail(), e.getMessage());
+        String subject = "Annual Leave Credit Notification";
+        String content = renderOrNull("leave-credit", templateVariables);
+        if (content == null) {
+            return;
         }
+        String summary = "Your annual leave balance for " + templateVariables.get("year") + " has been credited.";
+
+        deliver(EmailType.LEAVE_CREDIT, user.getEmail(), subject, summary, content);
     }
 
     /**
      * Send email notification about special leave credit
      */
-    @Async
     public void sendSpecialLeaveCreditEmail(User user, LeaveType leaveType, float amount, String reason) {
-        try {
-            if (user.getEmail() == null) {
-                return; // Skip if user email is not available
-            }
-
-            Map<String, Object> templateVariables = new HashMap<>();
-            templateVariables.put("userName", user.getFullName());
-            templateVariables.put("leaveType", leaveType);
-            templateVariables.put("amount", amount);
-            templateVariables.put("reason", reason);
+        if (user.getEmail() == null) {
+            return; // Skip if user email is not available
+        }
 
-            String subject = "Special Leave Credit Notification";
-            String content = processTemplate("special-leave-credit", templateVariables);
+        Map<String, Object> templateVariables = new HashMap<>();
+        templateVariables.put("userName", user.getFullName());
+        templateVariables.put("leaveType", leaveType);
+        templateVariables.put("amount", amount);
+        templateVariables.put("reason", reason);
 
-            sendEmail(user.getEmail(), subject, content);
-        } catch (Exception e) {
-            // Log the error but don't propagate - non-critical operation
-            logger.error("Failed to send special leave credit email to {}: {}", user.getEmail(), e.getMessage());
+        String subject = "Special Leave Credit Notification";
+        String content = renderOrNull("special-leave-credit", templateVariables);
+        if (content == null) {
+            return;
         }
+        String summary = amount + " days of " + leaveType + " leave have been credited to your account. Reason: "
+                + reason;
+
+        deliver(EmailType.SPECIAL_LEAVE_CREDIT, user.getEmail(), subject, summary, content);
     }
 
-    @Async
     public void sendResetPasswordEmail(String email, String resetLink) {
-        try {
-            Map<String, Object> templateVariables = new HashMap<>();
-            templateVariables.put("resetLink", resetLink);
+        Map<String, Object> templateVariables = new HashMap<>();
+        templateVariables.put("resetLink", resetLink);
+
+        String subject = "Reset Your Password";
+        String content = renderOrNull("reset-password", templateVariables);
+        if (content == null) {
+            return;
+        }
+
+        deliver(EmailType.RESET_PASSWORD, email, subject, subject, content);
+    }
 
-            String subject = "Reset Your Password";
-            String content = processTemplate("reset-password", templateVariables);
+    /**
+     * Render the digest for messages gathered for one recipient
+     */
+    public String renderDigest(List<EmailCoalescer.PendingEmail> emails) {
+        Map<String, Object> templateVariables = new HashMap<>();
+        templateVariables.put("count", emails.size());
+        templateVariables.put("items", emails);
+        return processTemplate("email-digest", templateVariables);
+    }
 
-            sendEmail(email, subject, content);
+    /**
+     * Send a message now, or hold it for the recipient's next digest
+     */
+    private void deliver(EmailType type, String to, String subject, String summary, String content) {
+        if (emailCoalescer.isCoalesced(type)) {
+            emailCoalescer.add(to, new EmailCoalescer.PendingEmail(type, subject, summary, content));
+            return;
+        }
+        sendEmail(to, subject, content);
+    }
+
+    /**
+     * Render an email template, or log and return null if it cannot be
+     * rendered, so a broken template does not fail the change behind the
+     * email. Only rendering is guarded: a failed enqueue has already marked
+     * the caller's transaction rollback-only and must reach the caller.
+     */
+    private String renderOrNull(String templateName, Map<String, Object> variables) {
+        try {
+            return processTemplate(templateName, variables);
         } catch (Exception e) {
-            // Log the error but don't propagate - non-critical operation
-            logger.error("Failed to send reset password email to {}: {}", email, e.getMessage());
+            logger.error("Failed to render {} email: {}", templateName, e.getMessage());
+            return null;
         }
     }
 
@@ -239,20 +277,31 @@ public class EmailService {
     }
 
     /**
-     * Send HTML email
+     * Queue an HTML email in the caller's transaction, so it is stored if and
+     * only if the change that caused it commits. The relay sends it and
+     * retries with backoff if the mail server refuses it.
      */
-    @Retryable(value = MessagingException.class, maxAttempts = 3, backoff = @Backoff(delay = 20000))
-    public void sendEmail(String to, String subject, String htmlContent) throws MessagingException {
+    public void sendEmail(String to, String subject, String htmlContent) {
+        emailQueueService.enqueue(to, subject, htmlContent);
+    }
+
+    /**
+     * Hand an HTML email to the mail server
+     */
+    public void transmit(String to, String subject, String htmlContent) throws MessagingException {
         MimeMessage message = mailSender.createMimeMessage();
         MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
         helper.setTo(to);
         helper.setSubject(subject);
         helper.setText(htmlContent, true);
-        mailSender.send(message);
-    }
 
-    @Recover
-    public void recover(MessagingException e, String to, String subject, String htmlContent) {
-        logger.error("Failed to send email to {} after multiple attempts: {}", to, e.getMessage());
+        long start = System.nanoTime();
+        try {
+            mailSender.send(message);
+        } catch (MailException e) {
+            emailDeliveryMetrics.recordFailure();
+            throw e;
+        }
+        emailDeliveryMetrics.recordSent(System.nanoTime() - start);
     }
 }
@@ -1,6 +1,7 @@
 package com.sap.fsad.leaveApp.service;
 
 import com.sap.fsad.leaveApp.dto.response.ApiResponse;
+import com.sap.fsad.leaveApp.event.HolidayChangedEvent;
 import com.sap.fsad.leaveApp.exception.BadRequestException;
 import com.sap.fsad.leaveApp.exception.ResourceNotFoundException;
 import com.sap.fsad.leaveApp.model.AuditLog;
@@ -8,7 +9,9 @@ import com.sap.fsad.leaveApp.model.Holiday;
 import com.sap.fsad.leaveApp.model.User;
 import com.sap.fsad.leaveApp.repository.AuditLogRepository;
 import com.sap.fsad.leaveApp.repository.HolidayRepository;
+import com.sap.fsad.leaveApp.util.HolidayCalendar;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -28,6 +31,12 @@ public class HolidayService {
     @Autowired
     private AuditLogRepository auditLogRepository;
 
+    @Autowired
+    private HolidayCalendar holidayCalendar;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     private void logAdminAction(String action, String details) {
         User currentUser = userService.getCurrentUser();
         AuditLog log = new AuditLog();
@@ -53,6 +62,7 @@ public class HolidayService {
         Holiday savedHoliday = holidayRepository.save(holiday);
 
         logAdminAction("CREATE_HOLIDAY", "Holiday created: " + savedHoliday.getName());
+        eventPublisher.publishEvent(new HolidayChangedEvent(savedHoliday.getId()));
         return savedHoliday;
     }
 
@@ -113,6 +123,7 @@ public class HolidayService {
         Holiday updatedHoliday = holidayRepository.save(holiday);
 
         logAdminAction("UPDATE_HOLIDAY", "Holiday updated: " + updatedHoliday.getName());
+        eventPublisher.publishEvent(new HolidayChangedEvent(updatedHoliday.getId()));
         return updatedHoliday;
     }
 
@@ -124,6 +135,7 @@ public class HolidayService {
         Holiday holiday = getHolidayById(id);
         logAdminAction("DELETE_HOLIDAY", "Holiday deleted: " + holiday.getName());
         holidayRepository.delete(holiday);
+        eventPublisher.publishEvent(new HolidayChangedEvent(id));
         return new ApiResponse(true, "Holiday deleted successfully");
     }
 
@@ -131,6 +143,6 @@ public class HolidayService {
      * Check if a date is a holiday
      */
     public boolean isHoliday(LocalDate date) {
-        return holidayRepository.existsByDate(date);
+        return holidayCalendar.isHoliday(date);
     }
 }
\ No newline at end of file
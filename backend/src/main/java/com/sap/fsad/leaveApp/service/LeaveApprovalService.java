@@ -3,18 +3,25 @@ package com.sap.fsad.leaveApp.service;
 import com.sap.fsad.leaveApp.dto.request.LeaveApprovalRequest;
 import com.sap.fsad.leaveApp.dto.response.ApiResponse;
 import com.sap.fsad.leaveApp.dto.response.LeaveResponse;
+import com.sap.fsad.leaveApp.event.LeaveDataChangedEvent;
 import com.sap.fsad.leaveApp.exception.BadRequestException;
 import com.sap.fsad.leaveApp.exception.ResourceNotFoundException;
 import com.sap.fsad.leaveApp.model.AuditLog;
 import com.sap.fsad.leaveApp.model.LeaveApplication;
-import com.sap.fsad.leaveApp.model.LeaveBalance;
 import com.sap.fsad.leaveApp.model.User;
 import com.sap.fsad.leaveApp.model.enums.LeaveStatus;
+import com.sap.fsad.leaveApp.model.enums.NotificationType;
 import com.sap.fsad.leaveApp.repository.AuditLogRepository;
 import com.sap.fsad.leaveApp.repository.LeaveApplicationRepository;
-import com.sap.fsad.leaveApp.repository.LeaveBalanceRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.retry.annotation.Backoff;
+import org.springframework.retry.annotation.Retryable;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -26,23 +33,33 @@ import java.util.stream.Collectors;
 @Service
 public class LeaveApprovalService {
 
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
     @Autowired
     private LeaveApplicationRepository leaveApplicationRepository;
 
     @Autowired
-    private LeaveBalanceRepository leaveBalanceRepository;
+    private LeaveBalanceLedger leaveBalanceLedger;
 
     @Autowired
     private UserService userService;
 
     @Autowired
-    private NotificationService notificationService;
+    private OutboxService outboxService;
 
     @Autowired
-    private EmailService emailService;
+    private AuditLogRepository auditLogRepository;
 
     @Autowired
-    private AuditLogRepository auditLogRepository;
+    private LeaveUsageAggregator leaveUsageAggregator;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    // Self reference through the proxy so each auto-approval runs in its own transaction
+    @Lazy
+    @Autowired
+    private LeaveApprovalService self;
 
     /**
      * Get all pending leave applications for approval
@@ -60,6 +77,9 @@ public class LeaveApprovalService {
     /**
      * Approve a leave application
      */
+    @Retryable(value = OptimisticLockingFailureException.class,
+            maxAttemptsExpression = "${app.leave.lock-retry.max-attempts:5}",
+            backoff = @Backoff(delayExpression = "${app.leave.lock-retry.backoff-ms:20}", multiplier = 2, random = true))
     @Transactional
     public ApiResponse approveLeave(Long id, LeaveApprovalRequest request) {
         User currentUser = userService.getCurrentUser();
@@ -90,21 +110,11 @@ public class LeaveApprovalService {
         leaveApplication.setUpdatedAt(LocalDateTime.now());
         leaveApplicationRepository.save(leaveApplication);
 
-        // Update leave balance
-        LeaveBalance leaveBalance = leaveBalanceRepository.findByUserAndLeaveTypeAndYear(
-                leaveApplication.getUser(),
-                leaveApplication.getLeaveType(),
-                leaveApplication.getStartDate().getYear())
-                .orElseThrow(() -> new ResourceNotFoundException("LeaveBalance", "user and type",
-                        leaveApplication.getUser().getId()));
-
-        float newBalance = leaveBalance.getBalance() - leaveApplication.getNumberOfDays();
-        float newUsed = leaveBalance.getUsed() + leaveApplication.getNumberOfDays();
-
-        leaveBalance.setBalance(newBalance);
-        leaveBalance.setUsed(newUsed);
-        leaveBalance.setUpdatedAt(LocalDateTime.now());
-        leaveBalanceRepository.save(leaveBalance);
+        // Move the reserved days to used
+        leaveBalanceLedger.settle(leaveApplication);
+        leaveUsageAggregator.recordTransition(leaveApplication, LeaveStatus.PENDING, LeaveStatus.APPROVED);
+        eventPublisher.publishEvent(
+                new LeaveDataChangedEvent(leaveApplication.getUser().getId(), leaveApplication.getId()));
 
         // Log the action
         AuditLog auditLog = new AuditLog();
@@ -116,8 +126,7 @@ public class LeaveApprovalService {
         auditLogRepository.save(auditLog);
 
         // Notify employee
-        notificationService.createLeaveApprovedNotification(leaveApplication.getUser(), leaveApplication);
-        emailService.sendLeaveApprovedEmail(leaveApplication);
+        outboxService.enqueue(NotificationType.LEAVE_APPROVED, leaveApplication.getUser(), leaveApplication);
 
         return new ApiResponse(true, "Leave application approved successfully");
     }
@@ -125,6 +134,9 @@ public class LeaveApprovalService {
     /**
      * Reject a leave application
      */
+    @Retryable(value = OptimisticLockingFailureException.class,
+            maxAttemptsExpression = "${app.leave.lock-retry.max-attempts:5}",
+            backoff = @Backoff(delayExpression = "${app.leave.lock-retry.backoff-ms:20}", multiplier = 2, random = true))
     @Transactional
     public ApiResponse rejectLeave(Long id, LeaveApprovalRequest request) {
         User currentUser = userService.getCurrentUser();
@@ -150,6 +162,12 @@ public class LeaveApprovalService {
         leaveApplication.setUpdatedAt(LocalDateTime.now());
         leaveApplicationRepository.save(leaveApplication);
 
+        // Return the reserved days
+        leaveBalanceLedger.release(leaveApplication);
+        leaveUsageAggregator.recordTransition(leaveApplication, LeaveStatus.PENDING, LeaveStatus.REJECTED);
+        eventPublisher.publishEvent(
+                new LeaveDataChangedEvent(leaveApplication.getUser().getId(), leaveApplication.getId()));
+
         // Log the action
         AuditLog auditLog = new AuditLog();
         auditLog.setAdminId(currentUser.getId());
@@ -160,8 +178,7 @@ public class LeaveApprovalService {
         auditLogRepository.save(auditLog);
 
         // Notify employee
-        notificationService.createLeaveRejectedNotification(leaveApplication.getUser(), leaveApplication);
-        emailService.sendLeaveRejectedEmail(leaveApplication);
+        outboxService.enqueue(NotificationType.LEAVE_REJECTED, leaveApplication.getUser(), leaveApplication);
 
         return new ApiResponse(true, "Leave application rejected successfully");
     }
@@ -216,31 +233,47 @@ public class LeaveApprovalService {
      * timeout
      */
     @Scheduled(cron = "0 0 * * * *") // Runs every hour
-    @Transactional
     public void autoApprovePendingLeaves() {
         LocalDateTime timeoutThreshold = LocalDateTime.now().minusHours(autoApprovalTimeoutHours);
 
         List<LeaveApplication> pendingLeaves = leaveApplicationRepository.findPendingLeavesBefore(timeoutThreshold);
 
+        // Each leave commits on its own, so one conflict does not undo the rest
         for (LeaveApplication leave : pendingLeaves) {
-            leave.setStatus(LeaveStatus.APPROVED);
-            leave.setApprovedBy(null); // No manager approved it
-            leave.setApprovedOn(LocalDateTime.now());
-            leaveApplicationRepository.save(leave);
-
-            // Update leave balance
-            LeaveBalance leaveBalance = leaveBalanceRepository.findByUserAndLeaveTypeAndYear(
-                    leave.getUser(), leave.getLeaveType(), leave.getStartDate().getYear())
-                    .orElseThrow(() -> new ResourceNotFoundException("LeaveBalance", "user and type",
-                            leave.getUser().getId()));
-
-            leaveBalance.setBalance(leaveBalance.getBalance() - leave.getNumberOfDays());
-            leaveBalance.setUsed(leaveBalance.getUsed() + leave.getNumberOfDays());
-            leaveBalanceRepository.save(leaveBalance);
-
-            // Notify user
-            notificationService.createLeaveApprovedNotification(leave.getUser(), leave);
-            emailService.sendLeaveApprovedEmail(leave);
+            try {
+                self.autoApproveLeave(leave.getId());
+            } catch (RuntimeException e) {
+                logger.error("Failed to auto-approve leave application {}: {}", leave.getId(), e.getMessage());
+            }
         }
     }
+
+    /**
+     * Approve a single leave application that timed out waiting for its manager
+     */
+    @Retryable(value = OptimisticLockingFailureException.class,
+            maxAttemptsExpression = "${app.leave.lock-retry.max-attempts:5}",
+            backoff = @Backoff(delayExpression = "${app.leave.lock-retry.backoff-ms:20}", multiplier = 2, random = true))
+    @Transactional
+    public void autoApproveLeave(Long id) {
+        LeaveApplication leave = leaveApplicationRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("LeaveApplication", "id", id));
+
+        // Decided by the manager since the batch was read
+        if (leave.getStatus() != LeaveStatus.PENDING) {
+            return;
+        }
+
+        leave.setStatus(LeaveStatus.APPROVED);
+        leave.setApprovedBy(null); // No manager approved it
+        leave.setApprovedOn(LocalDateTime.now());
+        leaveApplicationRepository.save(leave);
+
+        leaveBalanceLedger.settle(leave);
+        leaveUsageAggregator.recordTransition(leave, LeaveStatus.PENDING, LeaveStatus.APPROVED);
+        eventPublisher.publishEvent(new LeaveDataChangedEvent(leave.getUser().getId(), leave.getId()));
+
+        // Notify user
+        outboxService.enqueue(NotificationType.LEAVE_APPROVED, leave.getUser(), leave);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,89 @@
+package com.sap.fsad.leaveApp.service;
+
+import com.sap.fsad.leaveApp.exception.BadRequestException;
+import com.sap.fsad.leaveApp.exception.ResourceNotFoundException;
+import com.sap.fsad.leaveApp.model.LeaveApplication;
+import com.sap.fsad.leaveApp.model.LeaveBalance;
+import com.sap.fsad.leaveApp.model.User;
+import com.sap.fsad.leaveApp.model.enums.LeaveType;
+import com.sap.fsad.leaveApp.repository.LeaveBalanceRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+
+/**
+ * Moves days between the available, reserved and used parts of a leave
+ * balance. Days are reserved when an application is filed, then settled on
+ * approval or released on rejection or withdrawal. Balances carry a version,
+ * so concurrent changes fail with an optimistic lock conflict instead of
+ * overwriting each other; callers retry the whole transaction.
+ */
+@Service
+public class LeaveBalanceLedger {
+
+    @Autowired
+    private LeaveBalanceRepository leaveBalanceRepository;
+
+    /**
+     * Reserve days for a new pending application and record them on it
+     */
+    public LeaveBalance reserve(LeaveApplication leaveApplication) {
+        LeaveBalance leaveBalance = findBalance(leaveApplication);
+        int days = leaveApplication.getNumberOfDays();
+
+        float available = leaveBalance.getBalance() - leaveBalance.getReserved();
+        if (available < days) {
+            throw new BadRequestException("Insufficient leave balance. Available: " + available
+                    + ", Required: " + days);
+        }
+
+        leaveBalance.setReserved(leaveBalance.getReserved() + days);
+        leaveBalance.setUpdatedAt(LocalDateTime.now());
+        leaveApplication.setReservedDays((float) days);
+        return leaveBalanceRepository.saveAndFlush(leaveBalance);
+    }
+
+    /**
+     * Turn the reservation of an approved application into used days
+     */
+    public LeaveBalance settle(LeaveApplication leaveApplication) {
+        LeaveBalance leaveBalance = findBalance(leaveApplication);
+        int days = leaveApplication.getNumberOfDays();
+
+        leaveBalance.setBalance(leaveBalance.getBalance() - days);
+        leaveBalance.setUsed(leaveBalance.getUsed() + days);
+        leaveBalance.setReserved(releasedReservation(leaveBalance, leaveApplication));
+        leaveBalance.setUpdatedAt(LocalDateTime.now());
+        return leaveBalanceRepository.saveAndFlush(leaveBalance);
+    }
+
+    /**
+     * Return the reservation of a rejected or withdrawn application
+     */
+    public LeaveBalance release(LeaveApplication leaveApplication) {
+        LeaveBalance leaveBalance = findBalance(leaveApplication);
+
+        leaveBalance.setReserved(releasedReservation(leaveBalance, leaveApplication));
+        leaveBalance.setUpdatedAt(LocalDateTime.now());
+        return leaveBalanceRepository.saveAndFlush(leaveBalance);
+    }
+
+    // Release exactly what this application holds, so other pending applications keep their days.
+    // Applications filed before reservations existed hold nothing.
+    private float releasedReservation(LeaveBalance leaveBalance, LeaveApplication leaveApplication) {
+        Float held = leaveApplication.getReservedDays();
+        leaveApplication.setReservedDays(0f);
+        return held == null ? leaveBalance.getReserved() : leaveBalance.getReserved() - held;
+    }
+
+    private LeaveBalance findBalance(LeaveApplication leaveApplication) {
+        return findBalance(leaveApplication.getUser(), leaveApplication.getLeaveType(),
+                leaveApplication.getStartDate().getYear());
+    }
+
+    private LeaveBalance findBalance(User user, LeaveType leaveType, int year) {
+        return leaveBalanceRepository.findByUserAndLeaveTypeAndYear(user, leaveType, year)
+                .orElseThrow(() -> new ResourceNotFoundException("LeaveBalance", "user and type", user.getId()));
+    }
+}
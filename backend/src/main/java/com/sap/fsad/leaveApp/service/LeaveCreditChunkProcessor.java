@@ -0,0 +1,193 @@
+package com.sap.fsad.leaveApp.service;
+
+import com.sap.fsad.leaveApp.exception.ResourceNotFoundException;
+import com.sap.fsad.leaveApp.model.LeaveBalance;
+import com.sap.fsad.leaveApp.model.LeaveCreditCheckpoint;
+import com.sap.fsad.leaveApp.model.LeavePolicy;
+import com.sap.fsad.leaveApp.model.User;
+import com.sap.fsad.leaveApp.model.enums.LeaveType;
+import com.sap.fsad.leaveApp.repository.LeaveBalanceRepository;
+import com.sap.fsad.leaveApp.repository.LeaveCreditCheckpointRepository;
+import com.sap.fsad.leaveApp.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.retry.annotation.Backoff;
+import org.springframework.retry.annotation.Retryable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Credits annual leave for a chunk of users in one short transaction. Kept
+ * apart from LeaveCreditService so each chunk goes through the transactional
+ * proxy and commits on its own.
+ */
+@Component
+public class LeaveCreditChunkProcessor {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private LeaveBalanceRepository leaveBalanceRepository;
+
+    @Autowired
+    private LeaveCreditCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private LeavePolicyRegistry leavePolicyRegistry;
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private EmailService emailService;
+
+    /**
+     * Credit the users of one chunk and move the checkpoint past them in the
+     * same transaction. Returns the credited users, or null if the checkpoint
+     * had already moved on because another worker processed this chunk. A chunk that collides with
+     * a concurrent balance update is retried from the start.
+     */
+    @Retryable(value = OptimisticLockingFailureException.class,
+            maxAttemptsExpression = "${app.leave.lock-retry.max-attempts:5}",
+            backoff = @Backoff(delayExpression = "${app.leave.lock-retry.backoff-ms:20}", multiplier = 2, random = true))
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public List<User> processChunk(Long checkpointId, Long expectedLastUserId, List<Long> userIds, int year) {
+        LeaveCreditCheckpoint checkpoint = checkpointRepository.findByIdForUpdate(checkpointId)
+                .orElseThrow(() -> new ResourceNotFoundException("LeaveCreditCheckpoint", "id", checkpointId));
+        if (!checkpoint.getLastUserId().equals(expectedLastUserId)) {
+            return null;
+        }
+
+        List<User> users = userRepository.findWithRolesByIdIn(userIds);
+        List<User> credited = creditUsers(users, year);
+
+        checkpoint.setLastUserId(userIds.get(userIds.size() - 1));
+        checkpoint.setProcessedUsers(checkpoint.getProcessedUsers() + users.size());
+        checkpoint.setLastError(null);
+        checkpoint.setUpdatedAt(LocalDateTime.now());
+        return credited;
+    }
+
+    /**
+     * Record why a partition stopped, so it shows on the checkpoint until
+     * the run is resumed
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void recordFailure(Long checkpointId, String error) {
+        checkpointRepository.findByIdForUpdate(checkpointId).ifPresent(checkpoint -> {
+            checkpoint.setLastError(error != null && error.length() > 1000 ? error.substring(0, 1000) : error);
+            checkpoint.setUpdatedAt(LocalDateTime.now());
+        });
+    }
+
+    /**
+     * Mark a partition as finished
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void completePartition(Long checkpointId) {
+        LeaveCreditCheckpoint checkpoint = checkpointRepository.findByIdForUpdate(checkpointId)
+                .orElseThrow(() -> new ResourceNotFoundException("LeaveCreditCheckpoint", "id", checkpointId));
+        checkpoint.setCompleted(true);
+        checkpoint.setCompletedAt(LocalDateTime.now());
+        checkpoint.setUpdatedAt(LocalDateTime.now());
+    }
+
+    /**
+     * Read the current position of a partition, bypassing any entity cached
+     * by the caller
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public LeaveCreditCheckpoint loadCheckpoint(Long checkpointId) {
+        return checkpointRepository.findById(checkpointId)
+                .orElseThrow(() -> new ResourceNotFoundException("LeaveCreditCheckpoint", "id", checkpointId));
+    }
+
+    /**
+     * Credit annual leave to the given users within the caller's transaction,
+     * reading all their balances for the year and the one before in a single
+     * query. Every credited user gets one notification and one queued email.
+     * Returns the users that had at least one applicable policy.
+     */
+    public List<User> creditUsers(List<User> users, int year) {
+        List<Long> userIds = users.stream().map(User::getId).collect(Collectors.toList());
+        Map<String, LeaveBalance> balances = new HashMap<>();
+        for (LeaveBalance balance : leaveBalanceRepository.findByUserIdInAndYearIn(userIds, List.of(year, year - 1))) {
+            balances.put(balanceKey(balance.getUser().getId(), balance.getLeaveType(), balance.getYear()), balance);
+        }
+
+        List<LeaveBalance> newBalances = new ArrayList<>();
+        List<User> credited = new ArrayList<>();
+        for (User user : users) {
+            List<LeavePolicy> policies = leavePolicyRegistry.getPoliciesForRoles(user.getRoles());
+            if (policies.isEmpty()) {
+                continue;
+            }
+            for (LeavePolicy policy : policies) {
+                LeaveBalance balance = balances.get(balanceKey(user.getId(), policy.getLeaveType(), year));
+                if (balance == null) {
+                    newBalances.add(newBalance(user, policy, year));
+                } else {
+                    LeaveBalance previous = balances.get(balanceKey(user.getId(), policy.getLeaveType(), year - 1));
+                    applyCredit(balance, previous, policy);
+                }
+            }
+            credited.add(user);
+        }
+
+        // Existing balances are flushed by dirty checking; both go out in JDBC batches
+        leaveBalanceRepository.saveAll(newBalances);
+        credited.forEach(notificationService::createLeaveCreditedNotification);
+        credited.forEach(emailService::sendLeaveCreditEmail);
+        return credited;
+    }
+
+    private void applyCredit(LeaveBalance balance, LeaveBalance previousYear, LeavePolicy policy) {
+        if (Boolean.TRUE.equals(policy.getIsCarryForward())) {
+            // Carry forward last year's remaining balance, up to the accumulation limit
+            if (previousYear == null) {
+                return;
+            }
+            float carryForwardAmount = previousYear.getBalance();
+            if (policy.getMaxAccumulation() != null &&
+                    (balance.getBalance() + carryForwardAmount) > policy.getMaxAccumulation()) {
+                carryForwardAmount = policy.getMaxAccumulation() - balance.getBalance();
+            }
+            if (carryForwardAmount > 0) {
+                balance.setBalance(balance.getBalance() + carryForwardAmount);
+                balance.setUpdatedAt(LocalDateTime.now());
+            }
+        } else {
+            // Just add the annual credit, capped at the maximum accrual
+            balance.setBalance(balance.getBalance() + policy.getAnnualCredit());
+            if (policy.getMaxAccumulation() != null && balance.getBalance() > policy.getMaxAccumulation()) {
+                balance.setBalance(policy.getMaxAccumulation());
+            }
+            balance.setUpdatedAt(LocalDateTime.now());
+        }
+    }
+
+    private LeaveBalance newBalance(User user, LeavePolicy policy, int year) {
+        LeaveBalance newBalance = new LeaveBalance();
+        newBalance.setUser(user);
+        newBalance.setLeaveType(policy.getLeaveType());
+        newBalance.setBalance(policy.getAnnualCredit());
+        newBalance.setUsed(0f);
+        newBalance.setYear(year);
+        newBalance.setCreatedAt(LocalDateTime.now());
+        newBalance.setUpdatedAt(LocalDateTime.now());
+        return newBalance;
+    }
+
+    private static String balanceKey(Long userId, LeaveType leaveType, int year) {
+        return userId + ":" + leaveType + ":" + year;
+    }
+}
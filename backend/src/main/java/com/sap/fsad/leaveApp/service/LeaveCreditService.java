@@ -2,14 +2,22 @@ package com.sap.fsad.leaveApp.service;
 
 import com.sap.fsad.leaveApp.dto.response.ApiResponse;
 import com.sap.fsad.leaveApp.model.LeaveBalance;
-import com.sap.fsad.leaveApp.model.LeavePolicy;
+import com.sap.fsad.leaveApp.model.LeaveCreditCheckpoint;
 import com.sap.fsad.leaveApp.model.User;
-import com.sap.fsad.leaveApp.model.enums.UserRole;
 import com.sap.fsad.leaveApp.model.enums.LeaveType;
 import com.sap.fsad.leaveApp.repository.LeaveBalanceRepository;
-import com.sap.fsad.leaveApp.repository.LeavePolicyRepository;
+import com.sap.fsad.leaveApp.repository.LeaveCreditCheckpointRepository;
 import com.sap.fsad.leaveApp.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -18,16 +26,22 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class LeaveCreditService {
 
-    @Autowired
-    private UserRepository userRepository;
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    // Partitions being worked on by this node
+    private final Set<Long> runningPartitions = ConcurrentHashMap.newKeySet();
 
     @Autowired
-    private LeavePolicyRepository leavePolicyRepository;
+    private UserRepository userRepository;
 
     @Autowired
     private LeaveBalanceRepository leaveBalanceRepository;
@@ -38,6 +52,22 @@ public class LeaveCreditService {
     @Autowired
     private EmailService emailService;
 
+    @Autowired
+    private LeaveCreditChunkProcessor chunkProcessor;
+
+    @Autowired
+    private LeaveCreditCheckpointRepository checkpointRepository;
+
+    @Autowired
+    @Qualifier("leaveCreditExecutor")
+    private TaskExecutor leaveCreditExecutor;
+
+    @Value("${app.leave-credit.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${app.leave-credit.partitions:1}")
+    private int partitions;
+
     /**
      * Credit annual leave for a specific user
      */
@@ -46,44 +76,24 @@ public class LeaveCreditService {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
-        List<LeavePolicy> policies = new ArrayList<>();
-        for (UserRole role : user.getRoles()) {
-            policies.addAll(leavePolicyRepository.findByApplicableRolesAndActive(role));
-        }
         int currentYear = LocalDate.now().getYear();
-
-        for (LeavePolicy policy : policies) {
-            creditLeaveForUserAndPolicy(user, policy, currentYear);
-        }
-
-        // Notify user
-        notificationService.createLeaveCreditedNotification(user);
-        emailService.sendLeaveCreditEmail(user);
+        // Notifies the user by notification and email in this transaction
+        chunkProcessor.creditUsers(List.of(user), currentYear);
 
         return new ApiResponse(true, "Annual leave credited successfully for user: " + user.getFullName());
     }
 
     /**
-     * Credit annual leave for all users
+     * Credit annual leave for all users. The run is split into partitions by
+     * user id and processed in the background, one committed chunk at a time.
      */
-    @Transactional
     public ApiResponse creditAnnualLeaveForAllUsers() {
-        List<User> activeUsers = userRepository.findByIsActiveTrue();
         int currentYear = LocalDate.now().getYear();
-        List<LeavePolicy> allPolicies = leavePolicyRepository.findByIsActiveTrue();
-
-        for (User user : activeUsers) {
-            for (LeavePolicy policy : allPolicies) {
-                if (user.getRoles().stream().anyMatch(policy.getApplicableRoles()::contains)) {
-                    creditLeaveForUserAndPolicy(user, policy, currentYear);
-                    // Notify user
-                    notificationService.createLeaveCreditedNotification(user);
-                    emailService.sendLeaveCreditEmail(user);
-                }
-            }
+        int started = startRun(currentYear);
+        if (started == 0) {
+            return new ApiResponse(false, "Annual leave for " + currentYear + " has already been credited");
         }
-
-        return new ApiResponse(true, "Annual leave credited successfully for all users");
+        return new ApiResponse(true, "Annual leave credit started for all users in " + started + " partition(s)");
     }
 
     /**
@@ -91,67 +101,110 @@ public class LeaveCreditService {
      * to credit annual leave balances
      */
     @Scheduled(cron = "0 0 0 1 1 *") // Run at midnight on January 1st
-    @Transactional
     public void scheduledAnnualLeaveCredit() {
         creditAnnualLeaveForAllUsers();
     }
 
     /**
-     * Helper method to credit leave for a specific user and policy
+     * Resume runs interrupted by a crash or restart
      */
-    private void creditLeaveForUserAndPolicy(User user, LeavePolicy policy, int year) {
-        // Check if leave balance already exists for this user, leave type and year
-        Optional<LeaveBalance> existingBalance = leaveBalanceRepository.findByUserAndLeaveTypeAndYear(
-                user, policy.getLeaveType(), year);
-
-        if (existingBalance.isPresent()) {
-            LeaveBalance balance = existingBalance.get();
-
-            // Apply carry forward if allowed
-            if (policy.getIsCarryForward() && year > 1) {
-                // Get previous year's balance
-                Optional<LeaveBalance> prevYearBalance = leaveBalanceRepository.findByUserAndLeaveTypeAndYear(
-                        user, policy.getLeaveType(), year - 1);
-
-                if (prevYearBalance.isPresent()) {
-                    float carryForwardAmount = prevYearBalance.get().getBalance();
-
-                    // Apply max accumulation limit if set
-                    if (policy.getMaxAccumulation() != null &&
-                            (balance.getBalance() + carryForwardAmount) > policy.getMaxAccumulation()) {
-                        carryForwardAmount = policy.getMaxAccumulation() - balance.getBalance();
-                    }
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterruptedRuns() {
+        for (Integer year : checkpointRepository.findIncompleteYears()) {
+            logger.info("Resuming annual leave credit for {}", year);
+            startRun(year);
+        }
+    }
+
+    /**
+     * Create the partition checkpoints for the year if needed and submit every
+     * unfinished partition. Returns the number of partitions submitted.
+     */
+    private int startRun(int year) {
+        List<LeaveCreditCheckpoint> checkpoints = checkpointRepository.findByCreditYearOrderByPartitionIndex(year);
+        if (checkpoints.isEmpty()) {
+            try {
+                checkpoints = createCheckpoints(year);
+            } catch (DataIntegrityViolationException e) {
+                // Another node created them first
+                checkpoints = checkpointRepository.findByCreditYearOrderByPartitionIndex(year);
+            }
+        }
 
-                    if (carryForwardAmount > 0) {
-                        balance.setBalance(balance.getBalance() + carryForwardAmount);
-                        balance.setUpdatedAt(LocalDateTime.now());
-                        leaveBalanceRepository.save(balance);
+        int submitted = 0;
+        for (LeaveCreditCheckpoint checkpoint : checkpoints) {
+            if (!checkpoint.isCompleted() && runningPartitions.add(checkpoint.getId())) {
+                Long checkpointId = checkpoint.getId();
+                leaveCreditExecutor.execute(() -> {
+                    try {
+                        runPartition(checkpointId, year);
+                    } finally {
+                        runningPartitions.remove(checkpointId);
                     }
+                });
+                submitted++;
+            }
+        }
+        return submitted;
+    }
+
+    private List<LeaveCreditCheckpoint> createCheckpoints(int year) {
+        // Users created after the split land in the last partition
+        long maxId = userRepository.findMaxId();
+        int count = Math.max(1, partitions);
+        long size = Math.max(1, (maxId + count - 1) / count);
+
+        List<LeaveCreditCheckpoint> checkpoints = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            LeaveCreditCheckpoint checkpoint = new LeaveCreditCheckpoint();
+            checkpoint.setCreditYear(year);
+            checkpoint.setPartitionIndex(i);
+            checkpoint.setLastUserId(i * size);
+            checkpoint.setRangeEnd(i == count - 1 ? Long.MAX_VALUE : (i + 1) * size);
+            checkpoint.setStartedAt(LocalDateTime.now());
+            checkpoint.setUpdatedAt(LocalDateTime.now());
+            checkpoints.add(checkpoint);
+        }
+        return checkpointRepository.saveAll(checkpoints);
+    }
+
+    /**
+     * Walk one partition chunk by chunk using keyset paging on the user id
+     */
+    private void runPartition(Long checkpointId, int year) {
+        try {
+            LeaveCreditCheckpoint checkpoint = chunkProcessor.loadCheckpoint(checkpointId);
+            Long lastUserId = checkpoint.getLastUserId();
+            while (true) {
+                List<Long> userIds = userRepository.findActiveIdsAfter(lastUserId, checkpoint.getRangeEnd(),
+                        PageRequest.of(0, chunkSize));
+                if (userIds.isEmpty()) {
+                    chunkProcessor.completePartition(checkpointId);
+                    logger.info("Annual leave credit for {} finished partition {}", year,
+                            checkpoint.getPartitionIndex());
+                    return;
                 }
-            } else {
-                // Just add the annual credit
-                balance.setBalance(balance.getBalance() + policy.getAnnualCredit());
 
-                // Apply maximum accrual limit
-                if (policy.getMaxAccumulation() != null &&
-                        balance.getBalance() > policy.getMaxAccumulation()) {
-                    balance.setBalance(policy.getMaxAccumulation());
+                // Emails are queued in the chunk's transaction, so they commit or roll back with the credit
+                List<User> credited = chunkProcessor.processChunk(checkpointId, lastUserId, userIds, year);
+                if (credited == null) {
+                    // Another node processed this chunk; continue from where it got to
+                    lastUserId = chunkProcessor.loadCheckpoint(checkpointId).getLastUserId();
+                    continue;
                 }
 
-                balance.setUpdatedAt(LocalDateTime.now());
-                leaveBalanceRepository.save(balance);
+                lastUserId = userIds.get(userIds.size() - 1);
+            }
+        } catch (Exception e) {
+            // Lock conflicts have already been retried; resumed on restart or when the run is started again
+            logger.error("Annual leave credit for {} stopped in checkpoint {}: {}", year, checkpointId,
+                    e.getMessage());
+            try {
+                chunkProcessor.recordFailure(checkpointId, e.getMessage());
+            } catch (Exception recordError) {
+                logger.error("Failed to record the failure of checkpoint {}: {}", checkpointId,
+                        recordError.getMessage());
             }
-        } else {
-            // Create new balance
-            LeaveBalance newBalance = new LeaveBalance();
-            newBalance.setUser(user);
-            newBalance.setLeaveType(policy.getLeaveType());
-            newBalance.setBalance(policy.getAnnualCredit());
-            newBalance.setUsed(0f);
-            newBalance.setYear(year);
-            newBalance.setCreatedAt(LocalDateTime.now());
-            newBalance.setUpdatedAt(LocalDateTime.now());
-            leaveBalanceRepository.save(newBalance);
         }
     }
 
@@ -163,42 +216,51 @@ public class LeaveCreditService {
         List<ApiResponse> responses = new ArrayList<>();
         int currentYear = LocalDate.now().getYear();
 
-        for (Long userId : userIds) {
-            try {
-                User user = userRepository.findById(userId)
-                        .orElseThrow(() -> new RuntimeException("User not found with ID: " + userId));
-
-                Optional<LeaveBalance> existingBalance = leaveBalanceRepository.findByUserAndLeaveTypeAndYear(
-                        user, leaveType, currentYear);
-
-                if (existingBalance.isPresent()) {
-                    LeaveBalance balance = existingBalance.get();
-                    balance.setBalance(balance.getBalance() + amount);
-                    balance.setUpdatedAt(LocalDateTime.now());
-                    leaveBalanceRepository.save(balance);
-                } else {
-                    LeaveBalance newBalance = new LeaveBalance();
-                    newBalance.setUser(user);
-                    newBalance.setLeaveType(leaveType);
-                    newBalance.setBalance(amount);
-                    newBalance.setUsed(0f);
-                    newBalance.setYear(currentYear);
-                    newBalance.setCreatedAt(LocalDateTime.now());
-                    newBalance.setUpdatedAt(LocalDateTime.now());
-                    leaveBalanceRepository.save(newBalance);
-                }
+        // Load the users and their balances up front instead of two queries per user
+        Map<Long, User> users = userRepository.findAllById(userIds).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        Map<Long, LeaveBalance> balances = leaveBalanceRepository
+                .findByUserIdInAndYearIn(users.keySet(), List.of(currentYear)).stream()
+                .filter(balance -> balance.getLeaveType() == leaveType)
+                .collect(Collectors.toMap(balance -> balance.getUser().getId(), Function.identity()));
 
-                // Notify user
-                notificationService.createSpecialLeaveCreditedNotification(user, leaveType, amount, reason);
-                emailService.sendSpecialLeaveCreditEmail(user, leaveType, amount, reason);
+        List<LeaveBalance> newBalances = new ArrayList<>();
+        List<User> credited = new ArrayList<>();
+        for (Long userId : userIds) {
+            User user = users.get(userId);
+            if (user == null) {
+                responses.add(new ApiResponse(false, "Failed to credit special leave for user ID: " + userId
+                        + ". Error: User not found with ID: " + userId));
+                continue;
+            }
 
-                responses.add(new ApiResponse(true, "Special leave credited for user: " + user.getFullName()));
-            } catch (Exception e) {
-                responses.add(new ApiResponse(false,
-                        "Failed to credit special leave for user ID: " + userId + ". Error: " + e.getMessage()));
+            LeaveBalance balance = balances.get(userId);
+            if (balance != null) {
+                balance.setBalance(balance.getBalance() + amount);
+                balance.setUpdatedAt(LocalDateTime.now());
+            } else {
+                LeaveBalance newBalance = new LeaveBalance();
+                newBalance.setUser(user);
+                newBalance.setLeaveType(leaveType);
+                newBalance.setBalance(amount);
+                newBalance.setUsed(0f);
+                newBalance.setYear(currentYear);
+                newBalance.setCreatedAt(LocalDateTime.now());
+                newBalance.setUpdatedAt(LocalDateTime.now());
+                newBalances.add(newBalance);
+                balances.put(userId, newBalance);
             }
+
+            // Notify user
+            notificationService.createSpecialLeaveCreditedNotification(user, leaveType, amount, reason);
+            credited.add(user);
+            responses.add(new ApiResponse(true, "Special leave credited for user: " + user.getFullName()));
         }
 
+        // New balances and notifications are inserted in JDBC batches at flush
+        leaveBalanceRepository.saveAll(newBalances);
+        credited.forEach(user -> emailService.sendSpecialLeaveCreditEmail(user, leaveType, amount, reason));
+
         return responses;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,102 @@
+package com.sap.fsad.leaveApp.service;
+
+import com.sap.fsad.leaveApp.event.LeavePolicyChangedEvent;
+import com.sap.fsad.leaveApp.model.LeavePolicy;
+import com.sap.fsad.leaveApp.model.enums.LeaveType;
+import com.sap.fsad.leaveApp.model.enums.UserRole;
+import com.sap.fsad.leaveApp.repository.LeavePolicyRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Active leave policies indexed by leave type and role. The matrix is an
+ * immutable snapshot replaced as a whole whenever a policy change commits,
+ * so lookups are plain enum-indexed reads.
+ */
+@Component
+public class LeavePolicyRegistry {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    @Autowired
+    private LeavePolicyRepository leavePolicyRepository;
+
+    private volatile Map<LeaveType, EnumMap<UserRole, LeavePolicy>> policies = new EnumMap<>(LeaveType.class);
+
+    @PostConstruct
+    void load() {
+        reload();
+    }
+
+    /**
+     * Reload active policies, picking up changes made on other nodes
+     */
+    @Scheduled(fixedDelayString = "${app.leave-policy.refresh-interval-ms:300000}")
+    public void reload() {
+        List<LeavePolicy> active = new ArrayList<>(leavePolicyRepository.findByIsActiveTrue());
+        active.sort(Comparator.comparing(LeavePolicy::getId));
+
+        EnumMap<LeaveType, EnumMap<UserRole, LeavePolicy>> matrix = new EnumMap<>(LeaveType.class);
+        for (LeavePolicy policy : active) {
+            EnumMap<UserRole, LeavePolicy> byRole = matrix.computeIfAbsent(policy.getLeaveType(),
+                    type -> new EnumMap<>(UserRole.class));
+            for (UserRole role : policy.getApplicableRoles()) {
+                // The oldest policy wins if two active policies cover the same type and role
+                byRole.putIfAbsent(role, policy);
+            }
+        }
+        policies = matrix;
+        logger.debug("Loaded {} active leave policies", active.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLeavePolicyChanged(LeavePolicyChangedEvent event) {
+        reload();
+    }
+
+    /**
+     * Find the active policy for a leave type that applies to any of the roles
+     */
+    public LeavePolicy findPolicy(LeaveType leaveType, Collection<UserRole> roles) {
+        EnumMap<UserRole, LeavePolicy> byRole = policies.get(leaveType);
+        if (byRole == null) {
+            return null;
+        }
+        for (UserRole role : roles) {
+            LeavePolicy policy = byRole.get(role);
+            if (policy != null) {
+                return policy;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Get the active policies that apply to any of the roles, one per leave type
+     */
+    public List<LeavePolicy> getPoliciesForRoles(Collection<UserRole> roles) {
+        List<LeavePolicy> result = new ArrayList<>();
+        for (EnumMap<UserRole, LeavePolicy> byRole : policies.values()) {
+            for (UserRole role : roles) {
+                LeavePolicy policy = byRole.get(role);
+                if (policy != null) {
+                    result.add(policy);
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+}
@@ -5,6 +5,7 @@ import com.sap.fsad.leaveApp.dto.response.LeaveResponse;
 import com.sap.fsad.leaveApp.dto.response.ApiResponse;
 import com.sap.fsad.leaveApp.dto.response.CalendarEventResponse;
 import com.sap.fsad.leaveApp.dto.response.LeaveBalanceResponse;
+import com.sap.fsad.leaveApp.event.LeaveDataChangedEvent;
 import com.sap.fsad.leaveApp.exception.BadRequestException;
 import com.sap.fsad.leaveApp.exception.ResourceNotFoundException;
 import com.sap.fsad.leaveApp.model.Holiday;
@@ -14,13 +15,18 @@ import com.sap.fsad.leaveApp.model.User;
 import com.sap.fsad.leaveApp.model.LeavePolicy;
 import com.sap.fsad.leaveApp.model.enums.LeaveStatus;
 import com.sap.fsad.leaveApp.model.enums.LeaveType;
+import com.sap.fsad.leaveApp.model.enums.NotificationType;
 import com.sap.fsad.leaveApp.repository.LeaveApplicationRepository;
 import com.sap.fsad.leaveApp.repository.LeaveBalanceRepository;
-import com.sap.fsad.leaveApp.repository.LeavePolicyRepository;
 import com.sap.fsad.leaveApp.util.DateUtil;
+import com.sap.fsad.leaveApp.util.HolidayCalendar;
 import com.sap.fsad.leaveApp.util.LeaveCalculator;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.retry.annotation.Backoff;
+import org.springframework.retry.annotation.Retryable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -40,16 +46,16 @@ public class LeaveService {
     private LeaveBalanceRepository leaveBalanceRepository;
 
     @Autowired
-    private LeavePolicyRepository leavePolicyRepository;
+    private LeavePolicyRegistry leavePolicyRegistry;
 
     @Autowired
-    private UserService userService;
+    private LeaveBalanceLedger leaveBalanceLedger;
 
     @Autowired
-    private NotificationService notificationService;
+    private UserService userService;
 
     @Autowired
-    private EmailService emailService;
+    private OutboxService outboxService;
 
     @Autowired
     private LeaveCalculator leaveCalculator;
@@ -57,9 +63,21 @@ public class LeaveService {
     @Autowired
     private HolidayService holidayService;
 
+    @Autowired
+    private HolidayCalendar holidayCalendar;
+
+    @Autowired
+    private LeaveUsageAggregator leaveUsageAggregator;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     /**
      * Apply for leave
      */
+    @Retryable(value = OptimisticLockingFailureException.class,
+            maxAttemptsExpression = "${app.leave.lock-retry.max-attempts:5}",
+            backoff = @Backoff(delayExpression = "${app.leave.lock-retry.backoff-ms:20}", multiplier = 2, random = true))
     @Transactional
     public LeaveResponse applyLeave(LeaveApplicationRequest request) {
         User currentUser = userService.getCurrentUser();
@@ -74,11 +92,11 @@ public class LeaveService {
         }
 
         // Check for holiday conflicts
-        List<Holiday> conflictingHolidays = holidayService.getHolidaysBetweenDates(request.getStartDate(),
+        List<String> conflictingHolidays = holidayCalendar.getHolidayNamesBetween(request.getStartDate(),
                 request.getEndDate());
         if (!conflictingHolidays.isEmpty()) {
             throw new BadRequestException("Leave dates conflict with public holidays: " +
-                    conflictingHolidays.stream().map(Holiday::getName).collect(Collectors.joining(", ")));
+                    String.join(", ", conflictingHolidays));
         }
 
         // Calculate number of working days
@@ -89,13 +107,10 @@ public class LeaveService {
         }
 
         // Check leave policy
-        LeavePolicy policy = currentUser.getRoles().stream()
-                .map(role -> leavePolicyRepository.findByLeaveTypeAndApplicableRolesContaining(
-                        request.getLeaveType(), role))
-                .filter(java.util.Optional::isPresent)
-                .map(java.util.Optional::get)
-                .findFirst()
-                .orElseThrow(() -> new BadRequestException("Leave policy not found for this leave type"));
+        LeavePolicy policy = leavePolicyRegistry.findPolicy(request.getLeaveType(), currentUser.getRoles());
+        if (policy == null) {
+            throw new BadRequestException("Leave policy not found for this leave type");
+        }
 
         // Validate against policy rules
         if (workingDays < policy.getMinDuration()) {
@@ -114,16 +129,6 @@ public class LeaveService {
                     + policy.getNoticeRequired() + " days");
         }
 
-        // Check leave balance
-        LeaveBalance leaveBalance = leaveBalanceRepository.findByUserAndLeaveTypeAndYear(
-                currentUser, request.getLeaveType(), LocalDate.now().getYear())
-                .orElseThrow(() -> new ResourceNotFoundException("LeaveBalance", "user and type", currentUser.getId()));
-
-        if (leaveBalance.getBalance() < workingDays) {
-            throw new BadRequestException("Insufficient leave balance. Available: " + leaveBalance.getBalance()
-                    + ", Required: " + workingDays);
-        }
-
         // Check for overlapping leave applications
         if (leaveApplicationRepository.existsOverlappingLeave(
                 currentUser.getId(),
@@ -158,12 +163,16 @@ public class LeaveService {
             leaveApplication.setAttachmentPath(request.getAttachmentPath());
         }
 
-        LeaveApplication savedApplication = leaveApplicationRepository.save(leaveApplication);
+        // Hold the days against the balance of the year the leave starts in,
+        // which is the balance approval settles against
+        leaveBalanceLedger.reserve(leaveApplication);
 
-        // Notify manager
+        LeaveApplication savedApplication = leaveApplicationRepository.save(leaveApplication);
+        leaveUsageAggregator.recordTransition(savedApplication, null, LeaveStatus.PENDING);
+        eventPublisher.publishEvent(new LeaveDataChangedEvent(currentUser.getId(), savedApplication.getId()));
 
-        notificationService.createLeaveApplicationNotification(manager, savedApplication);
-        emailService.sendLeaveApplicationEmail(savedApplication);
+        // Notify manager once the application is committed
+        outboxService.enqueue(NotificationType.LEAVE_APPLICATION, manager, savedApplication);
 
         return convertToLeaveResponse(savedApplication);
     }
@@ -214,6 +223,9 @@ public class LeaveService {
     /**
      * Withdraw a leave application
      */
+    @Retryable(value = OptimisticLockingFailureException.class,
+            maxAttemptsExpression = "${app.leave.lock-retry.max-attempts:5}",
+            backoff = @Backoff(delayExpression = "${app.leave.lock-retry.backoff-ms:20}", multiplier = 2, random = true))
     @Transactional
     public ApiResponse withdrawLeave(Long id) {
         User currentUser = userService.getCurrentUser();
@@ -234,6 +246,9 @@ public class LeaveService {
         leaveApplication.setStatus(LeaveStatus.WITHDRAWN);
         leaveApplication.setUpdatedAt(LocalDateTime.now());
         leaveApplicationRepository.save(leaveApplication);
+        leaveBalanceLedger.release(leaveApplication);
+        leaveUsageAggregator.recordTransition(leaveApplication, LeaveStatus.PENDING, LeaveStatus.WITHDRAWN);
+        eventPublisher.publishEvent(new LeaveDataChangedEvent(currentUser.getId(), leaveApplication.getId()));
 
         // Notify manager
         String superiorEmail = leaveApplication.getSuperiorEmail();
@@ -241,8 +256,7 @@ public class LeaveService {
             throw new BadRequestException("Superior's email is not available. Notification cannot be sent.");
         }
 
-        notificationService.createLeaveWithdrawalNotification(currentUser.getManager(), leaveApplication);
-        emailService.sendLeaveWithdrawalEmail(leaveApplication);
+        outboxService.enqueue(NotificationType.LEAVE_WITHDRAWN, currentUser.getManager(), leaveApplication);
 
         return new ApiResponse(true, "Leave application withdrawn successfully");
     }
@@ -360,6 +374,7 @@ public class LeaveService {
         response.setLeaveType(leaveBalance.getLeaveType());
         response.setBalance(leaveBalance.getBalance());
         response.setUsed(leaveBalance.getUsed());
+        response.setReserved(leaveBalance.getReserved());
         response.setYear(leaveBalance.getYear());
         response.setLeaveTypeName(leaveBalance.getLeaveType().toString());
         return response;
@@ -0,0 +1,183 @@
+package com.sap.fsad.leaveApp.service;
+
+import com.sap.fsad.leaveApp.dto.response.ApiResponse;
+import com.sap.fsad.leaveApp.dto.response.LeaveUsageAggregateResponse;
+import com.sap.fsad.leaveApp.exception.BadRequestException;
+import com.sap.fsad.leaveApp.model.LeaveApplication;
+import com.sap.fsad.leaveApp.model.LeaveUsageAggregate;
+import com.sap.fsad.leaveApp.model.LeaveUsageDelta;
+import com.sap.fsad.leaveApp.model.enums.LeaveStatus;
+import com.sap.fsad.leaveApp.model.enums.LeaveType;
+import com.sap.fsad.leaveApp.repository.LeaveUsageAggregateRepository;
+import com.sap.fsad.leaveApp.repository.LeaveUsageDeltaRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Maintains the leave_usage_aggregates summary table. A status change writes
+ * its delta to leave_usage_deltas in the transaction of the change, so the
+ * delta commits or rolls back with the leave application. The deltas are folded
+ * into the aggregates shortly after, off the request path, so status changes
+ * never queue on the shared aggregate rows.
+ */
+@Service
+public class LeaveUsageAggregator {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    @Autowired
+    private LeaveUsageAggregateRepository aggregateRepository;
+
+    @Autowired
+    private LeaveUsageDeltaRepository deltaRepository;
+
+    // Self reference through the proxy so each fold runs in its own transaction
+    @Lazy
+    @Autowired
+    private LeaveUsageAggregator self;
+
+    @Value("${app.leave-usage.fold-batch-size:500}")
+    private int foldBatchSize;
+
+    /**
+     * Record the move of a leave application's days from its old status to
+     * its new one. Pass null as the old status for a new application.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordTransition(LeaveApplication leave, LeaveStatus from, LeaveStatus to) {
+        long days = leave.getNumberOfDays() != null ? leave.getNumberOfDays() : 0;
+        long pendingCount = countDelta(LeaveStatus.PENDING, from, to);
+        long approvedCount = countDelta(LeaveStatus.APPROVED, from, to);
+        if (pendingCount == 0 && approvedCount == 0) {
+            return;
+        }
+
+        LeaveUsageDelta delta = new LeaveUsageDelta();
+        delta.setDepartment(department(leave.getUser().getDepartment()));
+        delta.setLeaveType(leave.getLeaveType());
+        delta.setUsageYear(leave.getStartDate().getYear());
+        delta.setUsageMonth(leave.getStartDate().getMonthValue());
+        delta.setPendingCount(pendingCount);
+        delta.setPendingDays(pendingCount * days);
+        delta.setApprovedCount(approvedCount);
+        delta.setApprovedDays(approvedCount * days);
+        delta.setCreatedAt(LocalDateTime.now());
+        deltaRepository.save(delta);
+    }
+
+    @Scheduled(fixedDelayString = "${app.leave-usage.fold-interval-ms:5000}")
+    public void foldDeltas() {
+        try {
+            int folded;
+            do {
+                folded = self.foldBatch(foldBatchSize);
+            } while (folded == foldBatchSize);
+        } catch (RuntimeException e) {
+            logger.error("Failed to fold leave usage deltas: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Add the oldest deltas to the aggregates and remove them. Returns the
+     * number of deltas folded.
+     */
+    @Transactional
+    public int foldBatch(int batchSize) {
+        List<LeaveUsageDelta> deltas = deltaRepository.findOldestForUpdate(PageRequest.of(0, batchSize));
+
+        // One update per aggregate row, in key order so concurrent folds cannot deadlock
+        Map<LeaveUsageAggregate.Key, long[]> sums = new TreeMap<>(KEY_ORDER);
+        for (LeaveUsageDelta delta : deltas) {
+            long[] sum = sums.computeIfAbsent(new LeaveUsageAggregate.Key(delta.getDepartment(),
+                    delta.getLeaveType(), delta.getUsageYear(), delta.getUsageMonth()), key -> new long[4]);
+            sum[0] += delta.getPendingCount();
+            sum[1] += delta.getPendingDays();
+            sum[2] += delta.getApprovedCount();
+            sum[3] += delta.getApprovedDays();
+        }
+        sums.forEach((key, sum) -> {
+            if (sum[0] != 0 || sum[1] != 0 || sum[2] != 0 || sum[3] != 0) {
+                aggregateRepository.addUsage(key.getDepartment(), key.getLeaveType().name(), key.getUsageYear(),
+                        key.getUsageMonth(), sum[0], sum[1], sum[2], sum[3]);
+            }
+        });
+
+        deltaRepository.deleteAllInBatch(deltas);
+        return deltas.size();
+    }
+
+    /**
+     * Re-file a user's leave under their new department
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void moveUser(Long userId, String oldDepartment, String newDepartment) {
+        aggregateRepository.addUserUsage(userId, department(oldDepartment), -1);
+        aggregateRepository.addUserUsage(userId, department(newDepartment), 1);
+    }
+
+    /**
+     * Recompute the aggregates from the leave applications, to repair drift
+     * or to fill the table for data written before it existed
+     */
+    @Transactional
+    public ApiResponse rebuild() {
+        // Pending deltas are already reflected in the leave applications
+        deltaRepository.deleteAllRows();
+        aggregateRepository.deleteAllRows();
+        int rows = aggregateRepository.insertFromLeaveApplications();
+        return new ApiResponse(true, "Leave usage aggregates rebuilt with " + rows + " row(s)");
+    }
+
+    /**
+     * Fill the aggregates at startup when the table is empty, so transitions
+     * of existing leave do not drive the counts negative
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfEmpty() {
+        if (aggregateRepository.count() == 0) {
+            logger.info(self.rebuild().getMessage());
+        }
+    }
+
+    /**
+     * Monthly usage between two years, optionally for one department or leave type
+     */
+    @Transactional(readOnly = true)
+    public List<LeaveUsageAggregateResponse> getUsage(int fromYear, int toYear, String department,
+            LeaveType leaveType) {
+        if (fromYear > toYear) {
+            throw new BadRequestException("fromYear must not be after toYear");
+        }
+        return aggregateRepository.findUsage(fromYear, toYear, department, leaveType);
+    }
+
+    private static final Comparator<LeaveUsageAggregate.Key> KEY_ORDER = Comparator
+            .comparing(LeaveUsageAggregate.Key::getDepartment)
+            .thenComparing(LeaveUsageAggregate.Key::getLeaveType)
+            .thenComparingInt(LeaveUsageAggregate.Key::getUsageYear)
+            .thenComparingInt(LeaveUsageAggregate.Key::getUsageMonth);
+
+    private static long countDelta(LeaveStatus status, LeaveStatus from, LeaveStatus to) {
+        return (to == status ? 1 : 0) - (from == status ? 1 : 0);
+    }
+
+    private static String department(String department) {
+        return department != null ? department : "";
+    }
+}
@@ -0,0 +1,131 @@
+package com.sap.fsad.leaveApp.service;
+
+import com.sap.fsad.leaveApp.config.NotificationRetentionProperties;
+import com.sap.fsad.leaveApp.dto.response.NotificationRetentionRunResponse;
+import com.sap.fsad.leaveApp.exception.BadRequestException;
+import com.sap.fsad.leaveApp.model.enums.NotificationType;
+import com.sap.fsad.leaveApp.repository.NotificationArchiveRepository;
+import com.sap.fsad.leaveApp.repository.NotificationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Removes read notifications older than their type's TTL, optionally
+ * copying them to notifications_archive first. Each batch is its own short
+ * transaction that only locks the rows it removes.
+ */
+@Service
+public class NotificationRetentionService {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private NotificationArchiveRepository notificationArchiveRepository;
+
+    @Autowired
+    private NotificationRetentionProperties properties;
+
+    // Self reference through the proxy so each batch runs in its own transaction
+    @Lazy
+    @Autowired
+    private NotificationRetentionService self;
+
+    private volatile NotificationRetentionRunResponse lastRun;
+
+    @Scheduled(cron = "${app.notifications.retention.cron:0 30 2 * * *}")
+    public void scheduledPurge() {
+        if (properties.isEnabled()) {
+            purgeExpiredNotifications();
+        }
+    }
+
+    /**
+     * Run the retention job now and return its statistics
+     */
+    public NotificationRetentionRunResponse purgeExpiredNotifications() {
+        if (!running.compareAndSet(false, true)) {
+            throw new BadRequestException("Notification retention is already running");
+        }
+
+        NotificationRetentionRunResponse run = new NotificationRetentionRunResponse();
+        run.setStartedAt(LocalDateTime.now());
+        run.setArchived(properties.isArchive());
+        Map<NotificationType, Long> purgedByType = new EnumMap<>(NotificationType.class);
+        try {
+            for (NotificationType type : NotificationType.values()) {
+                LocalDateTime cutoff = run.getStartedAt().minus(properties.getTtl(type));
+                long purged = 0;
+                int removed;
+                do {
+                    removed = self.purgeBatch(type, cutoff);
+                    purged += removed;
+                    pause(removed);
+                } while (removed == properties.getBatchSize());
+                purgedByType.put(type, purged);
+            }
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            logger.error("Notification retention stopped: {}", e.getMessage());
+            run.setError(e.getMessage());
+        } finally {
+            run.setPurgedByType(purgedByType);
+            run.setTotalPurged(purgedByType.values().stream().mapToLong(Long::longValue).sum());
+            run.setFinishedAt(LocalDateTime.now());
+            lastRun = run;
+            running.set(false);
+        }
+
+        logger.info("Notification retention purged {} notification(s): {}", run.getTotalPurged(), purgedByType);
+        return run;
+    }
+
+    /**
+     * Archive and delete one batch of expired notifications of a type.
+     * Returns the number of notifications removed.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public int purgeBatch(NotificationType type, LocalDateTime cutoff) {
+        List<Long> ids = notificationRepository.findExpiredReadIds(type, cutoff,
+                PageRequest.of(0, properties.getBatchSize()));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        if (properties.isArchive()) {
+            notificationArchiveRepository.archiveByIds(ids);
+        }
+        return notificationRepository.deleteByIds(ids);
+    }
+
+    /**
+     * Statistics of the last run, or null if it has not run since startup
+     */
+    public NotificationRetentionRunResponse getLastRun() {
+        return lastRun;
+    }
+
+    private void pause(int removed) throws InterruptedException {
+        if (removed > 0 && properties.getBatchPauseMs() > 0) {
+            Thread.sleep(properties.getBatchPauseMs());
+        }
+    }
+}
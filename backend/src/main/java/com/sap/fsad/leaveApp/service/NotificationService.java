@@ -1,5 +1,9 @@
 package com.sap.fsad.leaveApp.service;
 
+import com.sap.fsad.leaveApp.dto.response.NotificationPageResponse;
+import com.sap.fsad.leaveApp.dto.response.NotificationResponse;
+import com.sap.fsad.leaveApp.event.NotificationCreatedEvent;
+import com.sap.fsad.leaveApp.event.NotificationsReadEvent;
 import com.sap.fsad.leaveApp.exception.ResourceNotFoundException;
 import com.sap.fsad.leaveApp.model.LeaveApplication;
 import com.sap.fsad.leaveApp.model.Notification;
@@ -8,6 +12,9 @@ import com.sap.fsad.leaveApp.model.enums.LeaveType;
 import com.sap.fsad.leaveApp.model.enums.NotificationType;
 import com.sap.fsad.leaveApp.repository.NotificationRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -23,6 +30,15 @@ public class NotificationService {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private UnreadNotificationCounter unreadNotificationCounter;
+
+    @Value("${app.notifications.feed.max-page-size:100}")
+    private int maxFeedPageSize;
+
     /**
      * Create a notification for a leave application
      */
@@ -39,7 +55,7 @@ public class NotificationService {
         notification.setCreatedAt(LocalDateTime.now());
         notification.setUpdatedAt(LocalDateTime.now());
 
-        return notificationRepository.save(notification);
+        return saveAndPublish(notification);
     }
 
     /**
@@ -58,7 +74,7 @@ public class NotificationService {
         notification.setCreatedAt(LocalDateTime.now());
         notification.setUpdatedAt(LocalDateTime.now());
 
-        return notificationRepository.save(notification);
+        return saveAndPublish(notification);
     }
 
     /**
@@ -77,7 +93,7 @@ public class NotificationService {
         notification.setCreatedAt(LocalDateTime.now());
         notification.setUpdatedAt(LocalDateTime.now());
 
-        return notificationRepository.save(notification);
+        return saveAndPublish(notification);
     }
 
     /**
@@ -96,7 +112,7 @@ public class NotificationService {
         notification.setCreatedAt(LocalDateTime.now());
         notification.setUpdatedAt(LocalDateTime.now());
 
-        return notificationRepository.save(notification);
+        return saveAndPublish(notification);
     }
 
     /**
@@ -113,7 +129,7 @@ public class NotificationService {
         notification.setCreatedAt(LocalDateTime.now());
         notification.setUpdatedAt(LocalDateTime.now());
 
-        return notificationRepository.save(notification);
+        return saveAndPublish(notification);
     }
 
     /**
@@ -132,7 +148,7 @@ public class NotificationService {
         notification.setCreatedAt(LocalDateTime.now());
         notification.setUpdatedAt(LocalDateTime.now());
 
-        return notificationRepository.save(notification);
+        return saveAndPublish(notification);
     }
 
     /**
@@ -143,6 +159,36 @@ public class NotificationService {
         return notificationRepository.findByUserOrderByCreatedAtDesc(currentUser);
     }
 
+    /**
+     * Get a page of the current user's notifications, newest first. Pages
+     * continue from the notification id in before, so deep pages cost the
+     * same as the first one.
+     */
+    @Transactional(readOnly = true)
+    public NotificationPageResponse getCurrentUserNotificationFeed(Long before, int limit) {
+        Long userId = userService.getCurrentUserId();
+        int pageSize = Math.max(1, Math.min(limit, maxFeedPageSize));
+        // One extra row tells whether there is a next page
+        PageRequest page = PageRequest.of(0, pageSize + 1);
+
+        List<NotificationResponse> notifications;
+        if (before == null) {
+            notifications = notificationRepository.findFeedFirstPage(userId, page);
+        } else {
+            Notification cursor = notificationRepository.findByIdAndUserId(before, userId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Notification", "id", before));
+            notifications = notificationRepository.findFeedPageBefore(userId, cursor.getCreatedAt(), cursor.getId(),
+                    page);
+        }
+
+        boolean hasMore = notifications.size() > pageSize;
+        if (hasMore) {
+            notifications = notifications.subList(0, pageSize);
+        }
+        Long nextBefore = hasMore ? notifications.get(notifications.size() - 1).getId() : null;
+        return new NotificationPageResponse(notifications, hasMore, nextBefore);
+    }
+
     /**
      * Get unread notifications for current user
      */
@@ -155,8 +201,7 @@ public class NotificationService {
      * Get unread notification count for current user
      */
     public long getCurrentUserUnreadNotificationCount() {
-        User currentUser = userService.getCurrentUser();
-        return notificationRepository.countUnreadNotificationsByUserId(currentUser.getId());
+        return unreadNotificationCounter.getUnreadCount(userService.getCurrentUserId());
     }
 
     /**
@@ -173,6 +218,9 @@ public class NotificationService {
             throw new ResourceNotFoundException("Notification", "id", id);
         }
 
+        if (!notification.getIsRead()) {
+            eventPublisher.publishEvent(new NotificationsReadEvent(currentUser.getId(), 1));
+        }
         notification.setIsRead(true);
         notification.setUpdatedAt(LocalDateTime.now());
         return notificationRepository.save(notification);
@@ -183,14 +231,21 @@ public class NotificationService {
      */
     @Transactional
     public void markAllNotificationsAsRead() {
-        User currentUser = userService.getCurrentUser();
-        List<Notification> unreadNotifications = notificationRepository.findByUserAndIsReadFalse(currentUser);
-
-        for (Notification notification : unreadNotifications) {
-            notification.setIsRead(true);
-            notification.setUpdatedAt(LocalDateTime.now());
-        }
+        Long userId = userService.getCurrentUserId();
+        // One UPDATE statement however many notifications are unread
+        int updated = notificationRepository.markAllReadByUserId(userId, LocalDateTime.now());
+        eventPublisher.publishEvent(new NotificationsReadEvent(userId, updated));
+    }
 
-        notificationRepository.saveAll(unreadNotifications);
+    /**
+     * Save a new notification and push it to the user's open streams once
+     * the transaction commits
+     */
+    private Notification saveAndPublish(Notification notification) {
+        Notification saved = notificationRepository.save(notification);
+        eventPublisher.publishEvent(new NotificationCreatedEvent(saved.getId(), saved.getUser().getId(),
+                saved.getType(), saved.getTitle(), saved.getMessage(), saved.getRelatedEntityId(),
+                saved.getCreatedAt()));
+        return saved;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,184 @@
+package com.sap.fsad.leaveApp.service;
+
+import com.sap.fsad.leaveApp.dto.response.NotificationResponse;
+import com.sap.fsad.leaveApp.event.NotificationCreatedEvent;
+import com.sap.fsad.leaveApp.exception.BadRequestException;
+import com.sap.fsad.leaveApp.exception.ResourceNotFoundException;
+import com.sap.fsad.leaveApp.model.Notification;
+import com.sap.fsad.leaveApp.repository.NotificationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Open Server-Sent Events connections by user. New notifications are pushed
+ * to every connection of their user after they commit, so connected clients
+ * do not need to poll.
+ */
+@Component
+public class NotificationStreamRegistry {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final Map<Long, CopyOnWriteArrayList<SseEmitter>> emitters = new ConcurrentHashMap<>();
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Value("${app.notifications.stream.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${app.notifications.stream.max-emitters-per-user:3}")
+    private int maxEmittersPerUser;
+
+    @Value("${app.notifications.stream.replay-limit:100}")
+    private int replayLimit;
+
+    @Value("${app.notifications.stream.reconnect-ms:5000}")
+    private long reconnectMs;
+
+    /**
+     * Open a stream for the user. When the client reconnects with the id of
+     * the last event it saw, the notifications it missed are sent first.
+     */
+    public SseEmitter register(Long userId, String lastEventId) {
+        // Resolve the cursor before opening the stream so a bad id is a plain 400
+        Cursor cursor = lastEventId != null ? parseEventId(userId, lastEventId) : null;
+
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        List<SseEmitter> evicted = new ArrayList<>();
+        emitters.compute(userId, (id, userEmitters) -> {
+            if (userEmitters == null) {
+                userEmitters = new CopyOnWriteArrayList<>();
+            }
+            userEmitters.add(emitter);
+            // Close the oldest connections beyond the cap
+            while (userEmitters.size() > maxEmittersPerUser) {
+                evicted.add(userEmitters.remove(0));
+            }
+            return userEmitters;
+        });
+        evicted.forEach(SseEmitter::complete);
+
+        emitter.onCompletion(() -> remove(userId, emitter));
+        emitter.onTimeout(() -> remove(userId, emitter));
+        emitter.onError(e -> remove(userId, emitter));
+
+        try {
+            emitter.send(SseEmitter.event().reconnectTime(reconnectMs).comment("connected"));
+            if (cursor != null) {
+                List<NotificationResponse> missed = notificationRepository.findStreamReplay(userId,
+                        cursor.createdAt, cursor.id, PageRequest.of(0, replayLimit));
+                for (NotificationResponse notification : missed) {
+                    emitter.send(toEvent(notification));
+                }
+            }
+        } catch (IOException e) {
+            remove(userId, emitter);
+            emitter.completeWithError(e);
+        }
+        return emitter;
+    }
+
+    /**
+     * Push a new notification once it has committed. Runs on its own
+     * executor because a slow client can block the write.
+     */
+    @Async("notificationStreamExecutor")
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNotificationCreated(NotificationCreatedEvent event) {
+        List<SseEmitter> userEmitters = emitters.get(event.getUserId());
+        if (userEmitters == null) {
+            return;
+        }
+        NotificationResponse response = new NotificationResponse(event.getNotificationId(), event.getType(),
+                event.getTitle(), event.getMessage(), event.getRelatedEntityId(), false, event.getCreatedAt());
+        for (SseEmitter emitter : userEmitters) {
+            try {
+                emitter.send(toEvent(response));
+            } catch (IOException | IllegalStateException e) {
+                remove(event.getUserId(), emitter);
+            }
+        }
+    }
+
+    /**
+     * Keep idle connections open through proxies and drop the ones whose
+     * client has gone away
+     */
+    @Scheduled(fixedDelayString = "${app.notifications.stream.heartbeat-ms:25000}")
+    public void sendHeartbeats() {
+        emitters.forEach((userId, userEmitters) -> {
+            for (SseEmitter emitter : userEmitters) {
+                try {
+                    emitter.send(SseEmitter.event().comment("heartbeat"));
+                } catch (IOException | IllegalStateException e) {
+                    remove(userId, emitter);
+                }
+            }
+        });
+    }
+
+    private void remove(Long userId, SseEmitter emitter) {
+        emitters.computeIfPresent(userId, (id, userEmitters) -> {
+            userEmitters.remove(emitter);
+            return userEmitters.isEmpty() ? null : userEmitters;
+        });
+    }
+
+    /**
+     * Read the position of a reconnecting client. Event ids are
+     * "createdAt_id", since ids from the pooled sequence are not in creation
+     * order across nodes. A bare notification id from an older client is
+     * looked up instead.
+     */
+    private Cursor parseEventId(Long userId, String eventId) {
+        try {
+            int separator = eventId.lastIndexOf('_');
+            if (separator > 0) {
+                return new Cursor(LocalDateTime.parse(eventId.substring(0, separator)),
+                        Long.parseLong(eventId.substring(separator + 1)));
+            }
+            Long id = Long.parseLong(eventId);
+            Notification notification = notificationRepository.findByIdAndUserId(id, userId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Notification", "id", id));
+            return new Cursor(notification.getCreatedAt(), notification.getId());
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new BadRequestException("Invalid Last-Event-ID: " + eventId);
+        }
+    }
+
+    private static SseEmitter.SseEventBuilder toEvent(NotificationResponse notification) {
+        return SseEmitter.event()
+                .id(notification.getCreatedAt() + "_" + notification.getId())
+                .name("notification")
+                .data(notification, MediaType.APPLICATION_JSON);
+    }
+
+    private static class Cursor {
+        private final LocalDateTime createdAt;
+        private final Long id;
+
+        private Cursor(LocalDateTime createdAt, Long id) {
+            this.createdAt = createdAt;
+            this.id = id;
+        }
+    }
+}
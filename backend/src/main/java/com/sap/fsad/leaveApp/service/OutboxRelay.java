@@ -0,0 +1,93 @@
+package com.sap.fsad.leaveApp.service;
+
+import com.sap.fsad.leaveApp.event.OutboxEnqueuedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Drains the outbox after each committing transaction and on a fixed poll, so
+ * rows left behind by a crash or a failed relay are delivered on the next run.
+ * Each row is relayed in its own transaction, so one failing row does not
+ * hold back the others.
+ */
+@Component
+public class OutboxRelay {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final ReentrantLock drainLock = new ReentrantLock();
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Value("${app.outbox.batch-size:100}")
+    private int batchSize;
+
+    @Value("${app.outbox.retention-days:7}")
+    private int retentionDays;
+
+    @Async("outboxExecutor")
+    @TransactionalEventListener
+    public void onOutboxEnqueued(OutboxEnqueuedEvent event) {
+        drain();
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.poll-interval-ms:5000}")
+    public void poll() {
+        drain();
+    }
+
+    @Scheduled(cron = "0 30 2 * * *") // Runs daily at 02:30
+    public void purgeProcessed() {
+        int purged = outboxService.purgeProcessedBefore(LocalDateTime.now().minusDays(retentionDays));
+        if (purged > 0) {
+            logger.info("Purged {} processed outbox events", purged);
+        }
+    }
+
+    /**
+     * Relay outbox rows batch by batch until the outbox is empty
+     */
+    public void drain() {
+        // Another thread on this node is already draining; it will pick up our rows too
+        if (!drainLock.tryLock()) {
+            return;
+        }
+        try {
+            List<Long> batch;
+            boolean relayedAny;
+            do {
+                batch = outboxService.findUnprocessed(batchSize);
+                relayedAny = false;
+                for (Long id : batch) {
+                    relayedAny |= relay(id);
+                }
+                // A full batch of failing rows is left for the next run rather than retried straight away
+            } while (batch.size() == batchSize && relayedAny);
+        } catch (Exception e) {
+            logger.error("Failed to relay outbox events: {}", e.getMessage());
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    private boolean relay(Long id) {
+        try {
+            outboxService.relay(id);
+            return true;
+        } catch (Exception e) {
+            outboxService.recordFailure(id, e.getMessage());
+            return false;
+        }
+    }
+}
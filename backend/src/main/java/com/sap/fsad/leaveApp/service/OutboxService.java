@@ -0,0 +1,134 @@
+package com.sap.fsad.leaveApp.service;
+
+import com.sap.fsad.leaveApp.event.OutboxEnqueuedEvent;
+import com.sap.fsad.leaveApp.model.LeaveApplication;
+import com.sap.fsad.leaveApp.model.OutboxEvent;
+import com.sap.fsad.leaveApp.model.User;
+import com.sap.fsad.leaveApp.model.enums.NotificationType;
+import com.sap.fsad.leaveApp.repository.OutboxEventRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Service
+public class OutboxService {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private EmailService emailService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.outbox.max-attempts:5}")
+    private int maxAttempts;
+
+    /**
+     * Record a notification for the recipient as part of the caller's transaction
+     */
+    @Transactional
+    public OutboxEvent enqueue(NotificationType type, User recipient, LeaveApplication leaveApplication) {
+        OutboxEvent event = new OutboxEvent();
+        event.setType(type);
+        event.setRecipient(recipient);
+        event.setLeaveApplication(leaveApplication);
+        event.setProcessed(false);
+        event.setCreatedAt(LocalDateTime.now());
+
+        OutboxEvent savedEvent = outboxEventRepository.save(event);
+        eventPublisher.publishEvent(new OutboxEnqueuedEvent(savedEvent.getId()));
+        return savedEvent;
+    }
+
+    /**
+     * Ids of the oldest outbox rows still waiting to be relayed
+     */
+    public List<Long> findUnprocessed(int batchSize) {
+        return outboxEventRepository.findUnprocessedIds(PageRequest.of(0, batchSize));
+    }
+
+    /**
+     * Turn one outbox row into a notification and a queued email and mark it
+     * processed, all in one transaction, so the row is either fully relayed
+     * or left for the next run. Rows locked by another relay or already
+     * processed are skipped.
+     */
+    @Transactional
+    public void relay(Long id) {
+        OutboxEvent event = outboxEventRepository.findUnprocessedForUpdate(id).orElse(null);
+        if (event == null) {
+            return;
+        }
+
+        User recipient = event.getRecipient();
+        LeaveApplication leaveApplication = event.getLeaveApplication();
+
+        switch (event.getType()) {
+            case LEAVE_APPLICATION -> {
+                notificationService.createLeaveApplicationNotification(recipient, leaveApplication);
+                emailService.sendLeaveApplicationEmail(leaveApplication);
+            }
+            case LEAVE_APPROVED -> {
+                notificationService.createLeaveApprovedNotification(recipient, leaveApplication);
+                emailService.sendLeaveApprovedEmail(leaveApplication);
+            }
+            case LEAVE_REJECTED -> {
+                notificationService.createLeaveRejectedNotification(recipient, leaveApplication);
+                emailService.sendLeaveRejectedEmail(leaveApplication);
+            }
+            case LEAVE_WITHDRAWN -> {
+                notificationService.createLeaveWithdrawalNotification(recipient, leaveApplication);
+                emailService.sendLeaveWithdrawalEmail(leaveApplication);
+            }
+            default -> logger.warn("Skipping outbox event {} with unsupported type {}", event.getId(),
+                    event.getType());
+        }
+
+        event.setProcessed(true);
+        event.setProcessedAt(LocalDateTime.now());
+    }
+
+    /**
+     * Record a failed relay of one outbox row, and park the row once its
+     * attempts are used so it no longer holds up the rows behind it
+     */
+    @Transactional
+    public void recordFailure(Long id, String error) {
+        OutboxEvent event = outboxEventRepository.findById(id).orElse(null);
+        if (event == null || event.isProcessed()) {
+            return;
+        }
+
+        event.setAttempts(event.getAttempts() + 1);
+        event.setLastError(error != null && error.length() > 1000 ? error.substring(0, 1000) : error);
+        if (event.getAttempts() >= maxAttempts) {
+            event.setParked(true);
+            logger.error("Parking outbox event {} after {} failed attempts: {}", id, event.getAttempts(), error);
+        } else {
+            logger.warn("Outbox event {} failed on attempt {}: {}", id, event.getAttempts(), error);
+        }
+    }
+
+    /**
+     * Remove processed outbox rows older than the given time
+     */
+    @Transactional
+    public int purgeProcessedBefore(LocalDateTime before) {
+        return outboxEventRepository.deleteProcessedBefore(before);
+    }
+}
@@ -0,0 +1,283 @@
+package com.sap.fsad.leaveApp.service;
+
+import com.sap.fsad.leaveApp.dto.request.ReportJobRequest;
+import com.sap.fsad.leaveApp.dto.response.ReportJobResponse;
+import com.sap.fsad.leaveApp.event.LeaveDataChangedEvent;
+import com.sap.fsad.leaveApp.exception.BadRequestException;
+import com.sap.fsad.leaveApp.exception.ResourceNotFoundException;
+import com.sap.fsad.leaveApp.model.enums.ReportFormat;
+import com.sap.fsad.leaveApp.model.enums.ReportJobStatus;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Renders reports in the background to files on local disk. Jobs with the
+ * same spec share one result until the leave data changes, and a bounded
+ * worker pool keeps exports from competing with interactive requests.
+ */
+@Service
+public class ReportJobService {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    // Jobs by id
+    private final Map<String, ReportJob> jobs = new ConcurrentHashMap<>();
+
+    // Latest job by spec hash, for reuse while the data is unchanged
+    private final Map<String, ReportJob> jobsBySpec = new ConcurrentHashMap<>();
+
+    // Bumped on every committed leave data change; part of the spec hash
+    private final AtomicLong dataVersion = new AtomicLong();
+
+    @Autowired
+    private ReportService reportService;
+
+    @Autowired
+    @Qualifier("reportJobExecutor")
+    private TaskExecutor reportJobExecutor;
+
+    @Value("${app.report.jobs.directory:${java.io.tmpdir}/leave-reports}")
+    private String directory;
+
+    @Value("${app.report.jobs.cache-ttl-ms:900000}")
+    private long cacheTtlMs;
+
+    @Value("${app.report.jobs.retention-ms:3600000}")
+    private long retentionMs;
+
+    private Path jobDirectory;
+
+    @PostConstruct
+    void init() throws IOException {
+        jobDirectory = Files.createDirectories(Paths.get(directory));
+    }
+
+    /**
+     * Submit a report job, or return the job that already holds or is
+     * rendering the same report
+     */
+    public ReportJobResponse submit(ReportJobRequest request) {
+        String specHash = specHash(request, dataVersion.get());
+
+        // Reuse or create in one step, so identical concurrent submits share one job
+        boolean[] created = { false };
+        ReportJob job = jobsBySpec.compute(specHash, (key, existing) -> {
+            if (existing != null && isReusable(existing)) {
+                return existing;
+            }
+            ReportJob newJob = new ReportJob(UUID.randomUUID().toString(), specHash, request);
+            jobs.put(newJob.id, newJob);
+            created[0] = true;
+            return newJob;
+        });
+        if (!created[0]) {
+            return toResponse(job, true);
+        }
+
+        try {
+            reportJobExecutor.execute(() -> render(job));
+        } catch (TaskRejectedException e) {
+            jobs.remove(job.id);
+            jobsBySpec.remove(specHash, job);
+            throw new BadRequestException("Too many report jobs are queued, please try again later");
+        }
+        return toResponse(job, false);
+    }
+
+    /**
+     * Get the status of a report job
+     */
+    public ReportJobResponse getJob(String id) {
+        return toResponse(findJob(id), false);
+    }
+
+    /**
+     * Get the rendered file of a completed report job
+     */
+    public Path getResultFile(String id) {
+        ReportJob job = findJob(id);
+        if (job.status != ReportJobStatus.COMPLETED || !Files.exists(job.file)) {
+            throw new BadRequestException("Report job " + id + " has no result to download");
+        }
+        return job.file;
+    }
+
+    /**
+     * Content type and file name of a report job result
+     */
+    public ReportFormat getFormat(String id) {
+        return findJob(id).request.getFormat();
+    }
+
+    /**
+     * Cached results no longer match the data once a leave change commits
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLeaveDataChanged(LeaveDataChangedEvent event) {
+        dataVersion.incrementAndGet();
+        jobsBySpec.clear();
+    }
+
+    /**
+     * Delete the results of jobs past their retention period
+     */
+    @Scheduled(fixedDelayString = "${app.report.jobs.cleanup-interval-ms:300000}")
+    public void purgeExpiredJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minusNanos(retentionMs * 1_000_000);
+        jobs.values().removeIf(job -> {
+            if (job.completedAt == null || job.completedAt.isAfter(cutoff)) {
+                return false;
+            }
+            jobsBySpec.remove(job.specHash, job);
+            deleteQuietly(job.file);
+            return true;
+        });
+    }
+
+    private void render(ReportJob job) {
+        job.status = ReportJobStatus.RUNNING;
+        Path partial = jobDirectory.resolve(job.id + ".part");
+        try {
+            try (OutputStream out = Files.newOutputStream(partial)) {
+                write(job.request, out);
+            }
+            // Readers only ever see a complete file
+            job.file = Files.move(partial, jobDirectory.resolve(job.id + "." + extension(job.request.getFormat())),
+                    StandardCopyOption.ATOMIC_MOVE);
+            job.sizeBytes = Files.size(job.file);
+            job.completedAt = LocalDateTime.now();
+            job.status = ReportJobStatus.COMPLETED;
+        } catch (Exception e) {
+            logger.error("Report job {} failed: {}", job.id, e.getMessage());
+            deleteQuietly(partial);
+            jobsBySpec.remove(job.specHash, job);
+            job.error = e.getMessage();
+            job.completedAt = LocalDateTime.now();
+            job.status = ReportJobStatus.FAILED;
+        }
+    }
+
+    private void write(ReportJobRequest request, OutputStream out) throws IOException {
+        switch (request.getFormat()) {
+            case EXCEL -> reportService.writeLeaveUsageExcel(out, request.getFrom(), request.getTo(),
+                    request.getDepartment());
+            case PDF -> reportService.writeLeaveUsagePdf(out, request.getFrom(), request.getTo(),
+                    request.getDepartment());
+            case CSV -> reportService.writeLeaveUsageCsv(out, request.getSince(), request.getUntil());
+            case NDJSON -> reportService.writeLeaveUsageNdjson(out, request.getSince(), request.getUntil());
+        }
+    }
+
+    private boolean isReusable(ReportJob job) {
+        if (job.status == ReportJobStatus.QUEUED || job.status == ReportJobStatus.RUNNING) {
+            return true;
+        }
+        return job.status == ReportJobStatus.COMPLETED
+                && job.completedAt.isAfter(LocalDateTime.now().minusNanos(cacheTtlMs * 1_000_000))
+                && Files.exists(job.file);
+    }
+
+    private ReportJob findJob(String id) {
+        ReportJob job = jobs.get(id);
+        if (job == null) {
+            throw new ResourceNotFoundException("ReportJob", "id", id);
+        }
+        return job;
+    }
+
+    private static String specHash(ReportJobRequest request, long version) {
+        String spec = request.getType() + "|" + request.getFormat() + "|" + request.getFrom() + "|"
+                + request.getTo() + "|" + request.getDepartment() + "|" + request.getSince() + "|"
+                + request.getUntil() + "|" + version;
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(spec.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static String extension(ReportFormat format) {
+        return switch (format) {
+            case EXCEL -> "xlsx";
+            case PDF -> "pdf";
+            case CSV -> "csv";
+            case NDJSON -> "ndjson";
+        };
+    }
+
+    private void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("Could not delete report file {}: {}", file, e.getMessage());
+        }
+    }
+
+    private ReportJobResponse toResponse(ReportJob job, boolean cached) {
+        ReportJobResponse response = new ReportJobResponse();
+        response.setId(job.id);
+        response.setType(job.request.getType());
+        response.setFormat(job.request.getFormat());
+        response.setStatus(job.status);
+        response.setCached(cached);
+        response.setSubmittedAt(job.submittedAt);
+        response.setCompletedAt(job.completedAt);
+        response.setSizeBytes(job.sizeBytes);
+        response.setError(job.error);
+        if (job.status == ReportJobStatus.COMPLETED) {
+            response.setDownloadUrl("/api/reports/jobs/" + job.id + "/download");
+        }
+        return response;
+    }
+
+    /**
+     * State of one report job. Fields written by the worker are volatile so
+     * status polls see them without locking.
+     */
+    private static class ReportJob {
+        private final String id;
+        private final String specHash;
+        private final ReportJobRequest request;
+        private final LocalDateTime submittedAt = LocalDateTime.now();
+        private volatile ReportJobStatus status = ReportJobStatus.QUEUED;
+        private volatile Path file;
+        private volatile Long sizeBytes;
+        private volatile String error;
+        private volatile LocalDateTime completedAt;
+
+        private ReportJob(String id, String specHash, ReportJobRequest request) {
+            this.id = id;
+            this.specHash = specHash;
+            this.request = request;
+        }
+    }
+}
@@ -1,23 +1,41 @@
 package com.sap.fsad.leaveApp.service;
 
+import com.sap.fsad.leaveApp.dto.response.LeaveUsageRow;
 import com.sap.fsad.leaveApp.model.LeaveApplication;
 import com.sap.fsad.leaveApp.model.enums.LeaveStatus;
-import com.itextpdf.io.source.ByteArrayOutputStream;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.itextpdf.kernel.pdf.PdfDocument;
 import com.itextpdf.kernel.pdf.PdfWriter;
 import com.itextpdf.layout.Document;
 import com.itextpdf.layout.element.Paragraph;
+import com.itextpdf.layout.element.Table;
+import com.itextpdf.layout.properties.UnitValue;
 import com.sap.fsad.leaveApp.model.Holiday;
 import com.sap.fsad.leaveApp.repository.LeaveApplicationRepository;
 import com.sap.fsad.leaveApp.repository.HolidayRepository;
 
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
-import org.apache.poi.ss.usermodel.Workbook;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Service
 public class ReportService {
@@ -28,6 +46,24 @@ public class ReportService {
     @Autowired
     private HolidayRepository holidayRepository;
 
+    // Rows added to the PDF table between flushes to the output
+    private static final int PDF_FLUSH_ROWS = 50;
+
+    // Characters buffered before a CSV export is written to the response
+    private static final int CSV_BUFFER_SIZE = 64 * 1024;
+
+    private static final String CSV_HEADER = "id,userId,employeeName,department,leaveType,startDate,endDate,"
+            + "numberOfDays,status,appliedOn,updatedAt\n";
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.report.excel.row-window:100}")
+    private int excelRowWindow;
+
+    @Value("${app.report.export.settle-lag-ms:60000}")
+    private long exportSettleLagMs;
+
     /**
      * Get leave usage report for all users
      */
@@ -50,54 +86,202 @@ public class ReportService {
     }
 
     /**
-     * Export leave usage report to Excel
+     * Stream the leave usage report as an Excel workbook. Rows are streamed
+     * from the database and only the last rows of the sheet stay in memory,
+     * so heap use does not grow with the size of the report.
      */
-    public byte[] exportLeaveUsageToExcel(List<LeaveApplication> leaveApplications) throws Exception {
-        Workbook workbook = new XSSFWorkbook();
-        Sheet sheet = workbook.createSheet("Leave Usage");
-
-        // Header row
-        Row headerRow = sheet.createRow(0);
-        headerRow.createCell(0).setCellValue("Employee");
-        headerRow.createCell(1).setCellValue("Leave Type");
-        headerRow.createCell(2).setCellValue("Start Date");
-        headerRow.createCell(3).setCellValue("End Date");
-        headerRow.createCell(4).setCellValue("Status");
-
-        // Data rows
-        int rowNum = 1;
-        for (LeaveApplication leave : leaveApplications) {
-            Row row = sheet.createRow(rowNum++);
-            row.createCell(0).setCellValue(leave.getUser().getFullName());
-            row.createCell(1).setCellValue(leave.getLeaveType().toString());
-            row.createCell(2).setCellValue(leave.getStartDate().toString());
-            row.createCell(3).setCellValue(leave.getEndDate().toString());
-            row.createCell(4).setCellValue(leave.getStatus().toString());
+    @Transactional(readOnly = true)
+    public void writeLeaveUsageExcel(OutputStream out, LocalDate fromDate, LocalDate toDate, String department)
+            throws IOException {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(excelRowWindow);
+        workbook.setCompressTempFiles(true);
+        try (Stream<LeaveUsageRow> rows = leaveApplicationRepository.streamLeaveUsage(fromDate, toDate, department)) {
+            Sheet sheet = workbook.createSheet("Leave Usage");
+
+            // Header row
+            Row headerRow = sheet.createRow(0);
+            headerRow.createCell(0).setCellValue("Employee");
+            headerRow.createCell(1).setCellValue("Leave Type");
+            headerRow.createCell(2).setCellValue("Start Date");
+            headerRow.createCell(3).setCellValue("End Date");
+            headerRow.createCell(4).setCellValue("Status");
+
+            // Data rows
+            int[] rowNum = { 1 };
+            rows.forEach(leave -> {
+                Row row = sheet.createRow(rowNum[0]++);
+                row.createCell(0).setCellValue(leave.getEmployeeName());
+                row.createCell(1).setCellValue(leave.getLeaveType().toString());
+                row.createCell(2).setCellValue(leave.getStartDate().toString());
+                row.createCell(3).setCellValue(leave.getEndDate().toString());
+                row.createCell(4).setCellValue(leave.getStatus().toString());
+            });
+
+            workbook.write(out);
+        } finally {
+            // Remove the temporary files backing the flushed rows
+            workbook.dispose();
+            workbook.close();
         }
+    }
 
-        ByteArrayOutputStream out = new ByteArrayOutputStream();
-        workbook.write(out);
-        workbook.close();
-        return out.toByteArray();
+    /**
+     * Upper bound of an incremental export window. updatedAt is set by the
+     * application before commit, so a row can become visible after a pull
+     * whose window already covers its updatedAt. Windows therefore stop
+     * settle-lag before now, and a consumer that starts its next pull at the
+     * returned watermark sees every row whose transaction committed within
+     * that lag.
+     */
+    public LocalDateTime exportWatermark(LocalDateTime until) {
+        LocalDateTime settled = LocalDateTime.now().minus(Duration.ofMillis(exportSettleLagMs));
+        return until == null || until.isAfter(settled) ? settled : until;
     }
 
     /**
-     * Export leave usage report to PDF
+     * Stream leave usage rows updated in [since, until) as CSV. Both bounds
+     * are optional; until is capped at the export watermark. One line buffer
+     * is reused for every row.
      */
-    public byte[] exportLeaveUsageToPDF(List<LeaveApplication> leaveApplications) throws Exception {
-        ByteArrayOutputStream out = new ByteArrayOutputStream();
-        PdfWriter writer = new PdfWriter(out);
-        Document document = new Document(new com.itextpdf.kernel.pdf.PdfDocument(writer));
-
-        document.add(new Paragraph("Leave Usage Report"));
-        for (LeaveApplication leave : leaveApplications) {
-            document.add(new Paragraph(leave.getUser().getFullName() + " - " +
-                    leave.getLeaveType() + " - " +
-                    leave.getStartDate() + " to " + leave.getEndDate() + " - " +
-                    leave.getStatus()));
+    @Transactional(readOnly = true)
+    public void writeLeaveUsageCsv(OutputStream out, LocalDateTime since, LocalDateTime until) throws IOException {
+        until = exportWatermark(until);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), CSV_BUFFER_SIZE);
+        StringBuilder line = new StringBuilder(256);
+        try (Stream<LeaveUsageRow> rows = leaveApplicationRepository.streamLeaveUsageUpdated(since, until)) {
+            writer.write(CSV_HEADER);
+            Iterator<LeaveUsageRow> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                LeaveUsageRow leave = iterator.next();
+                line.setLength(0);
+                line.append(leave.getId()).append(',')
+                        .append(leave.getUserId()).append(',');
+                appendCsv(line, leave.getEmployeeName()).append(',');
+                appendCsv(line, leave.getDepartment()).append(',');
+                appendCsv(line, leave.getLeaveType()).append(',');
+                appendCsv(line, leave.getStartDate()).append(',');
+                appendCsv(line, leave.getEndDate()).append(',');
+                appendCsv(line, leave.getNumberOfDays()).append(',');
+                appendCsv(line, leave.getStatus()).append(',');
+                appendCsv(line, leave.getAppliedOn()).append(',');
+                appendCsv(line, leave.getUpdatedAt()).append('\n');
+                writer.append(line);
+            }
+        }
+        writer.flush();
+    }
+
+    /**
+     * Stream leave usage rows updated in [since, until) as newline
+     * delimited JSON, one object per line. until is capped at the export
+     * watermark.
+     */
+    @Transactional(readOnly = true)
+    public void writeLeaveUsageNdjson(OutputStream out, LocalDateTime since, LocalDateTime until)
+            throws IOException {
+        until = exportWatermark(until);
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8);
+        // The servlet container owns the response stream
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        try (generator; Stream<LeaveUsageRow> rows = leaveApplicationRepository.streamLeaveUsageUpdated(since, until)) {
+            Iterator<LeaveUsageRow> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                LeaveUsageRow leave = iterator.next();
+                generator.writeStartObject();
+                generator.writeNumberField("id", leave.getId());
+                generator.writeNumberField("userId", leave.getUserId());
+                writeStringField(generator, "employeeName", leave.getEmployeeName());
+                writeStringField(generator, "department", leave.getDepartment());
+                writeStringField(generator, "leaveType", leave.getLeaveType());
+                writeStringField(generator, "startDate", leave.getStartDate());
+                writeStringField(generator, "endDate", leave.getEndDate());
+                if (leave.getNumberOfDays() != null) {
+                    generator.writeNumberField("numberOfDays", leave.getNumberOfDays());
+                } else {
+                    generator.writeNullField("numberOfDays");
+                }
+                writeStringField(generator, "status", leave.getStatus());
+                writeStringField(generator, "appliedOn", leave.getAppliedOn());
+                writeStringField(generator, "updatedAt", leave.getUpdatedAt());
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+            }
         }
+    }
+
+    /**
+     * Append a CSV field, quoting it when it contains a delimiter, quote or
+     * line break. Null values are written as empty fields.
+     */
+    private static StringBuilder appendCsv(StringBuilder line, Object value) {
+        if (value == null) {
+            return line;
+        }
+        String text = value.toString();
+        boolean quote = false;
+        for (int i = 0; i < text.length() && !quote; i++) {
+            char c = text.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            return line.append(text);
+        }
+        line.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"') {
+                line.append('"');
+            }
+            line.append(c);
+        }
+        return line.append('"');
+    }
 
-        document.close();
-        return out.toByteArray();
+    private static void writeStringField(JsonGenerator generator, String name, Object value) throws IOException {
+        if (value == null) {
+            generator.writeNullField(name);
+        } else {
+            generator.writeStringField(name, value.toString());
+        }
+    }
+
+    /**
+     * Stream the leave usage report as a PDF table. The table is flushed to
+     * the output every few rows, so only the rows of the current page are
+     * held in memory.
+     */
+    @Transactional(readOnly = true)
+    public void writeLeaveUsagePdf(OutputStream out, LocalDate fromDate, LocalDate toDate, String department) {
+        PdfWriter writer = new PdfWriter(out);
+        // The servlet container owns the response stream
+        writer.setCloseStream(false);
+
+        try (Document document = new Document(new PdfDocument(writer));
+                Stream<LeaveUsageRow> rows = leaveApplicationRepository.streamLeaveUsage(fromDate, toDate,
+                        department)) {
+            document.add(new Paragraph("Leave Usage Report"));
+
+            Table table = new Table(UnitValue.createPercentArray(new float[] { 3, 2, 2, 2, 2 }), true)
+                    .useAllAvailableWidth();
+            table.addHeaderCell("Employee");
+            table.addHeaderCell("Leave Type");
+            table.addHeaderCell("Start Date");
+            table.addHeaderCell("End Date");
+            table.addHeaderCell("Status");
+            document.add(table);
+
+            int[] rowCount = { 0 };
+            rows.forEach(leave -> {
+                table.addCell(leave.getEmployeeName());
+                table.addCell(leave.getLeaveType().toString());
+                table.addCell(leave.getStartDate().toString());
+                table.addCell(leave.getEndDate().toString());
+                table.addCell(leave.getStatus().toString());
+                if (++rowCount[0] % PDF_FLUSH_ROWS == 0) {
+                    table.flush();
+                }
+            });
+            table.complete();
+        }
     }
-}
\ No newline at end of file
+}
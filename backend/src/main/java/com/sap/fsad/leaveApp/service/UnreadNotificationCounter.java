@@ -0,0 +1,195 @@
+package com.sap.fsad.leaveApp.service;
+
+import com.sap.fsad.leaveApp.event.NotificationCreatedEvent;
+import com.sap.fsad.leaveApp.event.NotificationsReadEvent;
+import com.sap.fsad.leaveApp.repository.NotificationRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Unread notification counts per user, held in memory so badge refreshes
+ * are a map lookup. Counts are loaded on first use, adjusted after each
+ * committed change and reconciled with the database on a schedule, which
+ * also picks up changes made on other nodes. The map is split into stripes,
+ * each an LRU map with its own lock and a bounded number of entries.
+ */
+@Component
+public class UnreadNotificationCounter {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    // Users reconciled per query
+    private static final int RECONCILE_BATCH_SIZE = 500;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Value("${app.notifications.unread-counter.stripes:16}")
+    private int stripeCount;
+
+    @Value("${app.notifications.unread-counter.max-entries:50000}")
+    private int maxEntries;
+
+    private Stripe[] stripes;
+
+    @PostConstruct
+    void init() {
+        int perStripe = Math.max(1, maxEntries / stripeCount);
+        stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe(perStripe);
+        }
+    }
+
+    /**
+     * Unread notification count of a user, loaded from the database on a miss
+     */
+    public long getUnreadCount(Long userId) {
+        Stripe stripe = stripeFor(userId);
+        Entry entry;
+        long version;
+        synchronized (stripe) {
+            entry = stripe.counts.get(userId);
+            if (entry != null && entry.loaded) {
+                return entry.count;
+            }
+            if (entry == null) {
+                // Placeholder, so adjustments made while we query are noticed
+                entry = new Entry();
+                stripe.counts.put(userId, entry);
+            }
+            version = entry.version;
+        }
+
+        long loaded = notificationRepository.countUnreadNotificationsByUserId(userId);
+        synchronized (stripe) {
+            // An adjustment between the query and now may be missing from the loaded value
+            if (stripe.counts.get(userId) == entry && entry.version == version) {
+                entry.count = loaded;
+                entry.loaded = true;
+            }
+        }
+        return loaded;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNotificationCreated(NotificationCreatedEvent event) {
+        adjust(event.getUserId(), 1);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNotificationsRead(NotificationsReadEvent event) {
+        adjust(event.getUserId(), -event.getCount());
+    }
+
+    /**
+     * Correct cached counts that drifted, for example through changes made
+     * on another node
+     */
+    @Scheduled(fixedDelayString = "${app.notifications.unread-counter.reconcile-interval-ms:300000}")
+    public void reconcile() {
+        for (Stripe stripe : stripes) {
+            List<Long> userIds;
+            synchronized (stripe) {
+                userIds = new ArrayList<>(stripe.counts.keySet());
+            }
+
+            for (int from = 0; from < userIds.size(); from += RECONCILE_BATCH_SIZE) {
+                List<Long> batch = userIds.subList(from, Math.min(from + RECONCILE_BATCH_SIZE, userIds.size()));
+                Map<Long, Entry> entries = new HashMap<>();
+                Map<Long, Long> versions = new HashMap<>();
+                synchronized (stripe) {
+                    for (Long userId : batch) {
+                        Entry entry = stripe.counts.get(userId);
+                        if (entry != null && entry.loaded) {
+                            entries.put(userId, entry);
+                            versions.put(userId, entry.version);
+                        }
+                    }
+                }
+                if (entries.isEmpty()) {
+                    continue;
+                }
+
+                Map<Long, Long> actual = new HashMap<>();
+                try {
+                    for (Object[] row : notificationRepository.countUnreadByUserIds(entries.keySet())) {
+                        actual.put((Long) row[0], (Long) row[1]);
+                    }
+                } catch (Exception e) {
+                    logger.error("Failed to reconcile unread notification counts: {}", e.getMessage());
+                    return;
+                }
+
+                synchronized (stripe) {
+                    entries.forEach((userId, entry) -> {
+                        // Users adjusted while we were reading are checked again on the next run
+                        if (entry.version == versions.get(userId)) {
+                            entry.count = actual.getOrDefault(userId, 0L);
+                        }
+                    });
+                }
+            }
+        }
+    }
+
+    private void adjust(Long userId, long delta) {
+        if (delta == 0) {
+            return;
+        }
+        Stripe stripe = stripeFor(userId);
+        synchronized (stripe) {
+            Entry entry = stripe.counts.get(userId);
+            // Users not in the map are loaded with the committed value on their next read
+            if (entry != null) {
+                entry.version++;
+                if (entry.loaded) {
+                    entry.count = Math.max(0, entry.count + delta);
+                }
+            }
+        }
+    }
+
+    private Stripe stripeFor(Long userId) {
+        return stripes[Math.floorMod(Long.hashCode(userId), stripes.length)];
+    }
+
+    /**
+     * One lock-guarded LRU map of per-user entries
+     */
+    private static class Stripe {
+        private final Map<Long, Entry> counts;
+
+        private Stripe(int capacity) {
+            this.counts = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                    return size() > capacity;
+                }
+            };
+        }
+    }
+
+    /**
+     * Cached count of one user. The version is bumped on every adjustment so
+     * a load or reconciliation of this user can tell when its query result
+     * is stale. Guarded by the stripe lock.
+     */
+    private static class Entry {
+        private long count;
+        private long version;
+        private boolean loaded; // False while the first load is in flight
+    }
+}
@@ -10,11 +10,14 @@ import com.sap.fsad.leaveApp.model.LeaveBalance;
 import com.sap.fsad.leaveApp.model.User;
 import com.sap.fsad.leaveApp.repository.LeaveBalanceRepository;
 import com.sap.fsad.leaveApp.repository.UserRepository;
+import com.sap.fsad.leaveApp.security.CustomUserDetails;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestContextHolder;
 
 import java.time.LocalDateTime;
 import java.util.Collections;
@@ -33,11 +36,45 @@ public class UserService {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private CurrentUserContext currentUserContext;
+
     /**
-     * Get current logged-in user
+     * Get current logged-in user, loaded at most once per request
      */
     public User getCurrentUser() {
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
+        // Outside a web request (async and scheduled work) there is nothing to share the lookup with
+        if (RequestContextHolder.getRequestAttributes() == null) {
+            return loadCurrentUser();
+        }
+
+        User currentUser = currentUserContext.getUser();
+        if (currentUser == null) {
+            currentUser = loadCurrentUser();
+            currentUserContext.setUser(currentUser);
+        }
+        return currentUser;
+    }
+
+    /**
+     * Get the id of the current logged-in user without loading the user
+     */
+    public Long getCurrentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication.getPrincipal() instanceof CustomUserDetails principal) {
+            return principal.getId();
+        }
+        return getCurrentUser().getId();
+    }
+
+    private User loadCurrentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication.getPrincipal() instanceof CustomUserDetails principal) {
+            return userRepository.findWithRolesAndManagerById(principal.getId())
+                    .orElseThrow(() -> new UsernameNotFoundException("User not found with id: " + principal.getId()));
+        }
+
+        String username = authentication.getName();
         return userRepository.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with username: " + username));
     }
@@ -152,6 +189,7 @@ public class UserService {
         response.setLeaveTypeName(leaveBalance.getLeaveType().toString());
         response.setBalance(leaveBalance.getBalance());
         response.setUsed(leaveBalance.getUsed());
+        response.setReserved(leaveBalance.getReserved());
         response.setYear(leaveBalance.getYear());
 
         return response;
@@ -3,6 +3,7 @@ package com.sap.fsad.leaveApp.util;
 import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -12,6 +13,9 @@ import org.springframework.stereotype.Component;
 @Component
 public class DateUtil {
 
+    // Epoch day 0 (1970-01-01) is a Thursday, three days after a Monday
+    private static final int EPOCH_DAY_MONDAY_OFFSET = 3;
+
     /**
      * Calculate business days between two dates (excluding weekends)
      */
@@ -27,16 +31,35 @@ public class DateUtil {
             endDate = temp;
         }
 
-        // Count all days between the dates (inclusive of start and end)
-        long totalDays = ChronoUnit.DAYS.between(startDate, endDate) + 1;
+        return countWeekdays(startDate.toEpochDay(), endDate.toEpochDay());
+    }
 
-        // Count weekends
-        long weekends = Stream.iterate(startDate, date -> date.plusDays(1))
-                .limit(totalDays)
-                .filter(date -> date.getDayOfWeek() == DayOfWeek.SATURDAY || date.getDayOfWeek() == DayOfWeek.SUNDAY)
-                .count();
+    /**
+     * Count weekdays between two epoch days (inclusive) in constant time
+     */
+    public static long countWeekdays(long startEpochDay, long endEpochDay) {
+        if (startEpochDay > endEpochDay) {
+            return 0;
+        }
+        return weekdaysBefore(endEpochDay + 1) - weekdaysBefore(startEpochDay);
+    }
 
-        return totalDays - weekends;
+    /**
+     * Get the epoch day of the nth weekday after the given epoch day (n >= 1)
+     */
+    public static long nthWeekdayAfter(long epochDay, long n) {
+        long target = weekdaysBefore(epochDay + 1) + n - 1;
+        return 7 * Math.floorDiv(target, 5) + Math.floorMod(target, 5) - EPOCH_DAY_MONDAY_OFFSET;
+    }
+
+    /**
+     * Weekdays in the epoch days before the given one, counted from the Monday
+     * preceding the epoch. Each full week contributes five, the partial week
+     * at most five more.
+     */
+    private static long weekdaysBefore(long epochDay) {
+        long days = epochDay + EPOCH_DAY_MONDAY_OFFSET;
+        return 5 * Math.floorDiv(days, 7) + Math.min(Math.floorMod(days, 7), 5);
     }
 
     /**
@@ -67,10 +90,19 @@ public class DateUtil {
      * Get all business days between two dates (excluding weekends)
      */
     public static List<LocalDate> getBusinessDaysBetween(LocalDate startDate, LocalDate endDate) {
-        List<LocalDate> allDates = getDatesBetween(startDate, endDate);
-        return allDates.stream()
-                .filter(date -> !isWeekend(date))
-                .collect(Collectors.toList());
+        if (startDate.isAfter(endDate)) {
+            LocalDate temp = startDate;
+            startDate = endDate;
+            endDate = temp;
+        }
+
+        List<LocalDate> businessDays = new ArrayList<>((int) calculateBusinessDays(startDate, endDate));
+        for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusDays(1)) {
+            if (!isWeekend(date)) {
+                businessDays.add(date);
+            }
+        }
+        return businessDays;
     }
 
     /**
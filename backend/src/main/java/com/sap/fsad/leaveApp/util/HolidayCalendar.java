@@ -0,0 +1,196 @@
+package com.sap.fsad.leaveApp.util;
+
+import com.sap.fsad.leaveApp.event.HolidayChangedEvent;
+import com.sap.fsad.leaveApp.model.Holiday;
+import com.sap.fsad.leaveApp.repository.HolidayRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * In-memory holiday calendar. Readers see an immutable snapshot; every
+ * holiday change builds a new snapshot and swaps it in, so date arithmetic
+ * never touches the database.
+ *
+ * The snapshot covers a window of whole years around today and every stored
+ * holiday. Inside the window a prefix array of working-day counts answers
+ * range counts and "nth working day" in constant time; outside it there are
+ * no holidays, so the closed-form weekday arithmetic in {@link DateUtil}
+ * applies.
+ */
+@Component
+public class HolidayCalendar {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    @Autowired
+    private HolidayRepository holidayRepository;
+
+    @Value("${app.holiday.calendar.years-back:5}")
+    private int yearsBack;
+
+    @Value("${app.holiday.calendar.years-ahead:10}")
+    private int yearsAhead;
+
+    private volatile Snapshot snapshot;
+
+    @PostConstruct
+    void load() {
+        rebuild();
+    }
+
+    /**
+     * Rebuild the calendar from the holidays table
+     */
+    @Scheduled(fixedDelayString = "${app.holiday.calendar.refresh-interval-ms:300000}")
+    public void rebuild() {
+        TreeMap<LocalDate, String> holidays = new TreeMap<>();
+        for (Holiday holiday : holidayRepository.findAll()) {
+            holidays.merge(holiday.getDate(), holiday.getName(), (a, b) -> a + ", " + b);
+        }
+
+        int currentYear = LocalDate.now().getYear();
+        int firstYear = currentYear - yearsBack;
+        int lastYear = currentYear + yearsAhead;
+        if (!holidays.isEmpty()) {
+            firstYear = Math.min(firstYear, holidays.firstKey().getYear());
+            lastYear = Math.max(lastYear, holidays.lastKey().getYear());
+        }
+
+        snapshot = new Snapshot(holidays, LocalDate.of(firstYear, 1, 1), LocalDate.of(lastYear + 1, 1, 1));
+        logger.debug("Holiday calendar rebuilt with {} holidays for {}-{}", holidays.size(), firstYear, lastYear);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onHolidayChanged(HolidayChangedEvent event) {
+        rebuild();
+    }
+
+    /**
+     * Check if a date is a holiday
+     */
+    public boolean isHoliday(LocalDate date) {
+        return snapshot.holidays.containsKey(date);
+    }
+
+    /**
+     * Check if a date is a working day (not weekend and not holiday)
+     */
+    public boolean isWorkingDay(LocalDate date) {
+        long epochDay = date.toEpochDay();
+        return snapshot.countWorkingDays(epochDay, epochDay) == 1;
+    }
+
+    /**
+     * Names of the holidays between two dates (inclusive), in date order
+     */
+    public List<String> getHolidayNamesBetween(LocalDate startDate, LocalDate endDate) {
+        if (startDate.isAfter(endDate)) {
+            return Collections.emptyList();
+        }
+        return new ArrayList<>(snapshot.holidays.subMap(startDate, true, endDate, true).values());
+    }
+
+    /**
+     * Count working days between two dates (inclusive)
+     */
+    public int countWorkingDays(LocalDate startDate, LocalDate endDate) {
+        return (int) snapshot.countWorkingDays(startDate.toEpochDay(), endDate.toEpochDay());
+    }
+
+    /**
+     * Get the nth working day after a given date (n >= 1)
+     */
+    public LocalDate addWorkingDays(LocalDate date, int n) {
+        if (n < 1) {
+            throw new IllegalArgumentException("Number of working days must be positive");
+        }
+        return LocalDate.ofEpochDay(snapshot.nthWorkingDayAfter(date.toEpochDay(), n));
+    }
+
+    /**
+     * Get the next working day after a given date
+     */
+    public LocalDate getNextWorkingDay(LocalDate date) {
+        return addWorkingDays(date, 1);
+    }
+
+    private static final class Snapshot {
+        private final NavigableMap<LocalDate, String> holidays;
+        private final long windowStart; // First epoch day of the window
+        private final long windowEnd; // First epoch day after the window
+        // prefix[i] = working days among the first i days of the window
+        private final int[] prefix;
+        // Offsets from windowStart of every working day in the window, in order
+        private final int[] workingDays;
+
+        private Snapshot(NavigableMap<LocalDate, String> holidays, LocalDate from, LocalDate until) {
+            this.holidays = Collections.unmodifiableNavigableMap(holidays);
+            this.windowStart = from.toEpochDay();
+            this.windowEnd = until.toEpochDay();
+
+            int length = (int) (windowEnd - windowStart);
+            prefix = new int[length + 1];
+            int[] offsets = new int[length];
+            int count = 0;
+            LocalDate day = from;
+            for (int i = 0; i < length; i++, day = day.plusDays(1)) {
+                if (!DateUtil.isWeekend(day) && !holidays.containsKey(day)) {
+                    offsets[count++] = i;
+                }
+                prefix[i + 1] = count;
+            }
+            workingDays = Arrays.copyOf(offsets, count);
+        }
+
+        private long countWorkingDays(long start, long end) {
+            if (start > end) {
+                return 0;
+            }
+            long from = Math.max(start, windowStart);
+            long to = Math.min(end, windowEnd - 1);
+            long inside = from <= to ? prefix[(int) (to - windowStart + 1)] - prefix[(int) (from - windowStart)] : 0;
+            long before = DateUtil.countWeekdays(start, Math.min(end, windowStart - 1));
+            long after = DateUtil.countWeekdays(Math.max(start, windowEnd), end);
+            return before + inside + after;
+        }
+
+        private long nthWorkingDayAfter(long epochDay, long n) {
+            if (epochDay >= windowEnd - 1) {
+                return DateUtil.nthWeekdayAfter(epochDay, n);
+            }
+
+            // Walk over the weekdays before the window, if any
+            long remaining = n;
+            if (epochDay < windowStart - 1) {
+                long weekdays = DateUtil.countWeekdays(epochDay + 1, windowStart - 1);
+                if (remaining <= weekdays) {
+                    return DateUtil.nthWeekdayAfter(epochDay, remaining);
+                }
+                remaining -= weekdays;
+                epochDay = windowStart - 1;
+            }
+
+            // Working days in the window up to and including epochDay
+            int passed = prefix[(int) (epochDay - windowStart + 1)];
+            long index = passed + remaining - 1;
+            if (index < workingDays.length) {
+                return windowStart + workingDays[(int) index];
+            }
+            return DateUtil.nthWeekdayAfter(windowEnd - 1, index - workingDays.length + 1);
+        }
+    }
+}
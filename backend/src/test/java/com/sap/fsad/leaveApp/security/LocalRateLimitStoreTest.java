@@ -0,0 +1,136 @@
+package com.sap.fsad.leaveApp.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LocalRateLimitStoreTest {
+
+    private final LocalRateLimitStore store = new LocalRateLimitStore();
+
+    // One token a minute, so nothing refills while a test runs
+    private final RateLimitRule rule = new RateLimitRule("test", 5, 1);
+
+    @Test
+    void allowsABurstUpToCapacityThenRejects() {
+        for (int i = 0; i < 5; i++) {
+            assertThat(store.tryConsume("key", rule)).isZero();
+        }
+
+        long retryAfter = store.tryConsume("key", rule);
+        assertThat(retryAfter).isPositive().isLessThanOrEqualTo(60_000);
+    }
+
+    @Test
+    void keysHaveSeparateBuckets() {
+        for (int i = 0; i < 5; i++) {
+            store.tryConsume("a", rule);
+        }
+
+        assertThat(store.tryConsume("a", rule)).isPositive();
+        assertThat(store.tryConsume("b", rule)).isZero();
+    }
+
+    @Test
+    void refundGivesBackOneToken() {
+        for (int i = 0; i < 5; i++) {
+            store.tryConsume("key", rule);
+        }
+
+        store.refund("key", rule);
+
+        assertThat(store.tryConsume("key", rule)).isZero();
+        assertThat(store.tryConsume("key", rule)).isPositive();
+    }
+
+    @Test
+    void refundNeverFillsABucketBeyondCapacity() {
+        store.tryConsume("key", rule);
+        store.refund("key", rule);
+        store.refund("key", rule);
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(store.tryConsume("key", rule)).isZero();
+        }
+        assertThat(store.tryConsume("key", rule)).isPositive();
+    }
+
+    @Test
+    void concurrentRequestsNeverTakeMoreThanCapacity() throws Exception {
+        RateLimitRule burst = new RateLimitRule("burst", 100, 1);
+        int threads = 8;
+        int requestsPerThread = 1_000;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    int allowed = 0;
+                    for (int j = 0; j < requestsPerThread; j++) {
+                        if (store.tryConsume("shared", burst) == 0) {
+                            allowed++;
+                        }
+                    }
+                    return allowed;
+                }));
+            }
+            start.countDown();
+
+            int allowed = 0;
+            for (Future<Integer> result : results) {
+                allowed += result.get(10, TimeUnit.SECONDS);
+            }
+            // A token may refill while the threads run
+            assertThat(allowed).isBetween(100, 101);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void concurrentRefundsAreNotLost() throws Exception {
+        RateLimitRule burst = new RateLimitRule("burst", 1_000, 1);
+        for (int i = 0; i < 1_000; i++) {
+            store.tryConsume("shared", burst);
+        }
+
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    for (int j = 0; j < 100; j++) {
+                        store.refund("shared", burst);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> result : results) {
+                result.get(10, TimeUnit.SECONDS);
+            }
+
+            int allowed = 0;
+            while (store.tryConsume("shared", burst) == 0) {
+                allowed++;
+            }
+            assertThat(allowed).isBetween(800, 801);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.sap.fsad.leaveApp.service;
+
+import com.sap.fsad.leaveApp.model.QueuedEmail;
+import com.sap.fsad.leaveApp.model.enums.EmailQueueStatus;
+import com.sap.fsad.leaveApp.repository.QueuedEmailRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class EmailQueueServiceTest {
+
+    private static final long INITIAL_BACKOFF_MS = 1_000;
+    private static final long MAX_BACKOFF_MS = 8_000;
+    private static final long LEASE_MS = 60_000;
+
+    @Mock
+    private QueuedEmailRepository queuedEmailRepository;
+
+    @InjectMocks
+    private EmailQueueService emailQueueService;
+
+    private final QueuedEmail email = new QueuedEmail();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(emailQueueService, "maxAttempts", 10);
+        ReflectionTestUtils.setField(emailQueueService, "initialBackoffMs", INITIAL_BACKOFF_MS);
+        ReflectionTestUtils.setField(emailQueueService, "maxBackoffMs", MAX_BACKOFF_MS);
+        ReflectionTestUtils.setField(emailQueueService, "leaseMs", LEASE_MS);
+
+        email.setId(1L);
+        email.setRecipient("alice@example.com");
+        email.setStatus(EmailQueueStatus.PENDING);
+    }
+
+    @Test
+    void claimBatchLeasesEveryEmailUntilTheSameMicrosecond() {
+        QueuedEmail other = new QueuedEmail();
+        other.setStatus(EmailQueueStatus.PENDING);
+        when(queuedEmailRepository.findDueForUpdate(any(), any())).thenReturn(List.of(email, other));
+
+        LocalDateTime before = LocalDateTime.now();
+        emailQueueService.claimBatch(10);
+
+        LocalDateTime lease = email.getNextAttemptAt();
+        assertThat(other.getNextAttemptAt()).isEqualTo(lease);
+        assertThat(lease.getNano() % 1_000).isZero();
+        assertThat(lease).isAfter(before.plus(Duration.ofMillis(LEASE_MS)).minusNanos(1_000));
+    }
+
+    @Test
+    void markSentOnlyMatchesTheCallersLease() {
+        LocalDateTime lease = LocalDateTime.now().plusMinutes(1);
+
+        emailQueueService.markSent(1L, lease);
+
+        verify(queuedEmailRepository).markSent(eq(1L), eq(lease), any());
+    }
+
+    @Test
+    void backoffGrowsWithEachAttemptAndStaysWithinBounds() {
+        when(queuedEmailRepository.findById(1L)).thenReturn(Optional.of(email));
+        email.setNextAttemptAt(LocalDateTime.now());
+
+        long[] expectedDelays = {1_000, 2_000, 4_000, 8_000, 8_000};
+        for (long delay : expectedDelays) {
+            LocalDateTime before = LocalDateTime.now();
+            emailQueueService.markFailed(1L, email.getNextAttemptAt(), "timeout");
+            LocalDateTime after = LocalDateTime.now();
+
+            // Equal jitter: at least half the delay, at most the whole of it
+            assertThat(email.getNextAttemptAt())
+                    .isAfterOrEqualTo(before.plus(Duration.ofMillis(delay / 2)))
+                    .isBeforeOrEqualTo(after.plus(Duration.ofMillis(delay)));
+        }
+        assertThat(email.getAttempts()).isEqualTo(expectedDelays.length);
+        assertThat(email.getStatus()).isEqualTo(EmailQueueStatus.PENDING);
+    }
+
+    @Test
+    void givesUpOnceTheAttemptsAreUsed() {
+        ReflectionTestUtils.setField(emailQueueService, "maxAttempts", 2);
+        when(queuedEmailRepository.findById(1L)).thenReturn(Optional.of(email));
+        email.setNextAttemptAt(LocalDateTime.now());
+
+        emailQueueService.markFailed(1L, email.getNextAttemptAt(), "first");
+        emailQueueService.markFailed(1L, email.getNextAttemptAt(), "second");
+
+        assertThat(email.getStatus()).isEqualTo(EmailQueueStatus.DEAD);
+        assertThat(email.getNextAttemptAt()).isNull();
+        assertThat(email.getLastError()).isEqualTo("second");
+    }
+
+    @Test
+    void aFailureReportedAfterTheLeaseWasTakenOverIsIgnored() {
+        when(queuedEmailRepository.findById(1L)).thenReturn(Optional.of(email));
+        LocalDateTime expiredLease = LocalDateTime.now().minusMinutes(1);
+        LocalDateTime currentLease = LocalDateTime.now().plusMinutes(1);
+        email.setNextAttemptAt(currentLease);
+
+        emailQueueService.markFailed(1L, expiredLease, "slow relay");
+
+        assertThat(email.getAttempts()).isZero();
+        assertThat(email.getNextAttemptAt()).isEqualTo(currentLease);
+        assertThat(email.getLastError()).isNull();
+    }
+
+    @Test
+    void onlyTheRelayHoldingTheLeaseRecordsTheOutcome() throws Exception {
+        when(queuedEmailRepository.findById(1L)).thenReturn(Optional.of(email));
+        LocalDateTime currentLease = LocalDateTime.now().plusMinutes(1);
+        email.setNextAttemptAt(currentLease);
+
+        // One relay holds the current lease; the others claimed the email earlier and lost it
+        int relays = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(relays);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < relays; i++) {
+                LocalDateTime lease = i == 0 ? currentLease : currentLease.minusMinutes(i);
+                results.add(executor.submit(() -> {
+                    start.await();
+                    emailQueueService.markFailed(1L, lease, "relay failure");
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> result : results) {
+                result.get(10, TimeUnit.SECONDS);
+            }
+
+            assertThat(email.getAttempts()).isEqualTo(1);
+            assertThat(email.getNextAttemptAt()).isAfter(LocalDateTime.now());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
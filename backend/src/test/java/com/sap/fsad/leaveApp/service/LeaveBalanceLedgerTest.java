@@ -0,0 +1,257 @@
+package com.sap.fsad.leaveApp.service;
+
+import com.sap.fsad.leaveApp.exception.BadRequestException;
+import com.sap.fsad.leaveApp.model.LeaveApplication;
+import com.sap.fsad.leaveApp.model.LeaveBalance;
+import com.sap.fsad.leaveApp.model.User;
+import com.sap.fsad.leaveApp.model.enums.LeaveType;
+import com.sap.fsad.leaveApp.repository.LeaveBalanceRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.lenient;
+
+/**
+ * The repository is backed by one stored balance that behaves like a
+ * versioned row: a save from a stale copy fails with an optimistic lock
+ * conflict, the way Hibernate's @Version check does.
+ */
+@ExtendWith(MockitoExtension.class)
+class LeaveBalanceLedgerTest {
+
+    private static final int YEAR = 2030;
+
+    @Mock
+    private LeaveBalanceRepository leaveBalanceRepository;
+
+    @InjectMocks
+    private LeaveBalanceLedger ledger;
+
+    private final User user = new User();
+
+    private LeaveBalance stored;
+
+    @BeforeEach
+    void setUp() {
+        user.setId(1L);
+        stored = balance(10f);
+
+        lenient().when(leaveBalanceRepository.findByUserAndLeaveTypeAndYear(any(), any(), anyInt()))
+                .thenAnswer(invocation -> Optional.of(read()));
+        lenient().when(leaveBalanceRepository.saveAndFlush(any()))
+                .thenAnswer(invocation -> write(invocation.getArgument(0)));
+    }
+
+    @Test
+    void reserveRecordsTheDaysOnTheApplication() {
+        LeaveApplication application = application(3);
+
+        ledger.reserve(application);
+
+        assertThat(application.getReservedDays()).isEqualTo(3f);
+        assertThat(read().getReserved()).isEqualTo(3f);
+    }
+
+    @Test
+    void reserveRejectsDaysBeyondWhatIsNotAlreadyReserved() {
+        ledger.reserve(application(8));
+
+        assertThatThrownBy(() -> ledger.reserve(application(3)))
+                .isInstanceOf(BadRequestException.class);
+        assertThat(read().getReserved()).isEqualTo(8f);
+    }
+
+    @Test
+    void settleMovesTheReservationIntoUsedDays() {
+        LeaveApplication application = application(4);
+        ledger.reserve(application);
+
+        ledger.settle(application);
+
+        LeaveBalance balance = read();
+        assertThat(balance.getBalance()).isEqualTo(6f);
+        assertThat(balance.getUsed()).isEqualTo(4f);
+        assertThat(balance.getReserved()).isZero();
+        assertThat(application.getReservedDays()).isZero();
+    }
+
+    @Test
+    void releasingALegacyApplicationKeepsOtherReservations() {
+        LeaveApplication pending = application(5);
+        ledger.reserve(pending);
+        LeaveApplication legacy = application(4); // Filed before reservations, holds nothing
+
+        ledger.release(legacy);
+        ledger.settle(application(2));
+
+        assertThat(read().getReserved()).isEqualTo(5f);
+        assertThatThrownBy(() -> ledger.reserve(application(4)))
+                .isInstanceOf(BadRequestException.class);
+    }
+
+    @Test
+    void releasingTwiceReturnsTheDaysOnce() {
+        LeaveApplication first = application(3);
+        LeaveApplication second = application(2);
+        ledger.reserve(first);
+        ledger.reserve(second);
+
+        ledger.release(first);
+        ledger.release(first);
+
+        assertThat(read().getReserved()).isEqualTo(2f);
+    }
+
+    @Test
+    void concurrentReservationsNeverOverbook() throws Exception {
+        int threads = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(reserveWithRetry(start, application(1))));
+            }
+            start.countDown();
+
+            int granted = 0;
+            for (Future<Boolean> result : results) {
+                if (result.get(10, TimeUnit.SECONDS)) {
+                    granted++;
+                }
+            }
+
+            assertThat(granted).isEqualTo(10);
+            assertThat(read().getReserved()).isEqualTo(10f);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void concurrentSettleAndReleaseKeepTheBalanceConsistent() throws Exception {
+        int applications = 10;
+        for (int i = 0; i < applications; i++) {
+            ledger.reserve(application(1));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(applications);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < applications; i++) {
+                boolean approve = i % 2 == 0;
+                // Each attempt starts from the stored application, as a retried transaction reloads it
+                results.add(executor.submit(withRetry(start, () -> {
+                    LeaveApplication application = application(1);
+                    application.setReservedDays(1f);
+                    if (approve) {
+                        ledger.settle(application);
+                    } else {
+                        ledger.release(application);
+                    }
+                })));
+            }
+            start.countDown();
+            for (Future<Boolean> result : results) {
+                assertThat(result.get(10, TimeUnit.SECONDS)).isTrue();
+            }
+
+            LeaveBalance balance = read();
+            assertThat(balance.getReserved()).isZero();
+            assertThat(balance.getUsed()).isEqualTo(5f);
+            assertThat(balance.getBalance()).isEqualTo(5f);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Callable<Boolean> reserveWithRetry(CountDownLatch start, LeaveApplication application) {
+        return () -> {
+            try {
+                return withRetry(start, () -> ledger.reserve(application)).call();
+            } catch (BadRequestException e) {
+                return false;
+            }
+        };
+    }
+
+    // Retries optimistic lock conflicts like @Retryable does around the service methods
+    private Callable<Boolean> withRetry(CountDownLatch start, Runnable action) {
+        return () -> {
+            start.await();
+            while (true) {
+                try {
+                    action.run();
+                    return true;
+                } catch (ObjectOptimisticLockingFailureException e) {
+                    Thread.yield();
+                }
+            }
+        };
+    }
+
+    private LeaveApplication application(int days) {
+        LeaveApplication application = new LeaveApplication();
+        application.setUser(user);
+        application.setLeaveType(LeaveType.CASUAL);
+        application.setStartDate(LocalDate.of(YEAR, 3, 2));
+        application.setEndDate(LocalDate.of(YEAR, 3, 2).plusDays(days - 1));
+        application.setNumberOfDays(days);
+        return application;
+    }
+
+    private LeaveBalance balance(float days) {
+        LeaveBalance balance = new LeaveBalance(user, LeaveType.CASUAL, days);
+        balance.setId(1L);
+        balance.setYear(YEAR);
+        balance.setVersion(0L);
+        return balance;
+    }
+
+    private synchronized LeaveBalance read() {
+        return copy(stored);
+    }
+
+    private synchronized LeaveBalance write(LeaveBalance balance) {
+        if (!balance.getVersion().equals(stored.getVersion())) {
+            throw new ObjectOptimisticLockingFailureException(LeaveBalance.class, balance.getId());
+        }
+        stored = copy(balance);
+        stored.setVersion(balance.getVersion() + 1);
+        return copy(stored);
+    }
+
+    private static LeaveBalance copy(LeaveBalance balance) {
+        LeaveBalance copy = new LeaveBalance();
+        copy.setId(balance.getId());
+        copy.setUser(balance.getUser());
+        copy.setLeaveType(balance.getLeaveType());
+        copy.setYear(balance.getYear());
+        copy.setBalance(balance.getBalance());
+        copy.setUsed(balance.getUsed());
+        copy.setReserved(balance.getReserved());
+        copy.setVersion(balance.getVersion());
+        return copy;
+    }
+}
@@ -0,0 +1,100 @@
+package com.sap.fsad.leaveApp.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxRelayTest {
+
+    @Mock
+    private OutboxService outboxService;
+
+    @InjectMocks
+    private OutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(relay, "batchSize", 3);
+    }
+
+    @Test
+    void aFailingRowDoesNotHoldBackTheOthers() {
+        when(outboxService.findUnprocessed(3)).thenReturn(List.of(1L, 2L, 3L), List.of());
+        // Lenient, since the other rows reach relay() with different ids
+        lenient().doThrow(new IllegalStateException("bad recipient")).when(outboxService).relay(2L);
+
+        relay.drain();
+
+        verify(outboxService).relay(1L);
+        verify(outboxService).relay(3L);
+        verify(outboxService).recordFailure(2L, "bad recipient");
+        verify(outboxService, never()).recordFailure(eq(1L), any());
+        verify(outboxService, never()).recordFailure(eq(3L), any());
+    }
+
+    @Test
+    void drainsUntilABatchIsNotFull() {
+        when(outboxService.findUnprocessed(3)).thenReturn(List.of(1L, 2L, 3L), List.of(4L));
+
+        relay.drain();
+
+        verify(outboxService, times(2)).findUnprocessed(3);
+        verify(outboxService).relay(4L);
+    }
+
+    @Test
+    void aFullBatchOfFailingRowsIsLeftForTheNextRun() {
+        when(outboxService.findUnprocessed(3)).thenReturn(List.of(1L, 2L, 3L));
+        doThrow(new IllegalStateException("down")).when(outboxService).relay(anyLong());
+
+        relay.drain();
+
+        verify(outboxService, times(1)).findUnprocessed(3);
+        verify(outboxService, times(3)).recordFailure(anyLong(), eq("down"));
+    }
+
+    @Test
+    void concurrentDrainsOnOneNodeDoNotOverlap() throws Exception {
+        CountDownLatch relaying = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(outboxService.findUnprocessed(3)).thenReturn(List.of(1L));
+        doAnswer(invocation -> {
+            relaying.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return null;
+        }).when(outboxService).relay(1L);
+
+        CompletableFuture<Void> first = CompletableFuture.runAsync(relay::drain);
+        assertThat(relaying.await(10, TimeUnit.SECONDS)).isTrue();
+
+        // The second drain finds the lock taken and leaves the rows to the first
+        relay.drain();
+        release.countDown();
+        first.get(10, TimeUnit.SECONDS);
+
+        verify(outboxService, times(1)).findUnprocessed(3);
+        verify(outboxService, times(1)).relay(1L);
+    }
+}
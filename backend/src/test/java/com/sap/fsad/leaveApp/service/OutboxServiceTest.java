@@ -0,0 +1,84 @@
+package com.sap.fsad.leaveApp.service;
+
+import com.sap.fsad.leaveApp.model.OutboxEvent;
+import com.sap.fsad.leaveApp.repository.OutboxEventRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxServiceTest {
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    @Mock
+    private NotificationService notificationService;
+
+    @Mock
+    private EmailService emailService;
+
+    @InjectMocks
+    private OutboxService outboxService;
+
+    private final OutboxEvent event = new OutboxEvent();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(outboxService, "maxAttempts", 3);
+        event.setId(7L);
+    }
+
+    @Test
+    void recordsFailuresAndParksTheRowOnceAttemptsAreUsed() {
+        when(outboxEventRepository.findById(7L)).thenReturn(Optional.of(event));
+
+        outboxService.recordFailure(7L, "first");
+        outboxService.recordFailure(7L, "second");
+        assertThat(event.isParked()).isFalse();
+        assertThat(event.getAttempts()).isEqualTo(2);
+
+        outboxService.recordFailure(7L, "third");
+        assertThat(event.isParked()).isTrue();
+        assertThat(event.getLastError()).isEqualTo("third");
+    }
+
+    @Test
+    void truncatesLongErrors() {
+        when(outboxEventRepository.findById(7L)).thenReturn(Optional.of(event));
+
+        outboxService.recordFailure(7L, "x".repeat(5000));
+
+        assertThat(event.getLastError()).hasSize(1000);
+    }
+
+    @Test
+    void ignoresFailuresOfRowsAlreadyProcessed() {
+        event.setProcessed(true);
+        when(outboxEventRepository.findById(7L)).thenReturn(Optional.of(event));
+
+        outboxService.recordFailure(7L, "late");
+
+        assertThat(event.getAttempts()).isZero();
+        assertThat(event.getLastError()).isNull();
+    }
+
+    @Test
+    void skipsRowsLockedByAnotherRelay() {
+        when(outboxEventRepository.findUnprocessedForUpdate(7L)).thenReturn(Optional.empty());
+
+        outboxService.relay(7L);
+
+        verifyNoInteractions(notificationService, emailService);
+    }
+}
@@ -0,0 +1,96 @@
+package com.sap.fsad.leaveApp.service;
+
+import com.sap.fsad.leaveApp.dto.response.LeaveUsageRow;
+import com.sap.fsad.leaveApp.model.enums.LeaveStatus;
+import com.sap.fsad.leaveApp.model.enums.LeaveType;
+import com.sap.fsad.leaveApp.repository.LeaveApplicationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ReportServiceTest {
+
+    private static final String HEADER = "id,userId,employeeName,department,leaveType,startDate,endDate,"
+            + "numberOfDays,status,appliedOn,updatedAt\n";
+
+    private static final LocalDateTime APPLIED_ON = LocalDateTime.of(2030, 2, 1, 9, 30);
+    private static final LocalDateTime UPDATED_AT = LocalDateTime.of(2030, 2, 2, 10, 0);
+
+    @Mock
+    private LeaveApplicationRepository leaveApplicationRepository;
+
+    @InjectMocks
+    private ReportService reportService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(reportService, "exportSettleLagMs", 60_000L);
+    }
+
+    @Test
+    void writesPlainFieldsAsTheyAre() throws Exception {
+        String csv = csvOf(row("Jane Doe", "Engineering"));
+
+        assertThat(csv).isEqualTo(HEADER
+                + "1,2,Jane Doe,Engineering,CASUAL,2030-03-02,2030-03-04,3,APPROVED,2030-02-01T09:30,2030-02-02T10:00\n");
+    }
+
+    @Test
+    void quotesFieldsWithDelimitersAndDoublesTheirQuotes() throws Exception {
+        String csv = csvOf(row("Doe, Jane \"JD\"", "R&D\nLabs"));
+
+        assertThat(csv).isEqualTo(HEADER
+                + "1,2,\"Doe, Jane \"\"JD\"\"\",\"R&D\nLabs\",CASUAL,2030-03-02,2030-03-04,3,APPROVED,"
+                + "2030-02-01T09:30,2030-02-02T10:00\n");
+    }
+
+    @Test
+    void quotesCarriageReturnsAndWritesNullsAsEmptyFields() throws Exception {
+        String csv = csvOf(row("Jane\rDoe", null));
+
+        assertThat(csv).isEqualTo(HEADER
+                + "1,2,\"Jane\rDoe\",,CASUAL,2030-03-02,2030-03-04,3,APPROVED,2030-02-01T09:30,2030-02-02T10:00\n");
+    }
+
+    @Test
+    void capsTheWindowAtTheExportWatermark() throws Exception {
+        LocalDateTime since = LocalDateTime.now().minusDays(1);
+        LocalDateTime future = LocalDateTime.now().plusDays(1);
+        when(leaveApplicationRepository.streamLeaveUsageUpdated(any(), any())).thenReturn(Stream.empty());
+
+        reportService.writeLeaveUsageCsv(new ByteArrayOutputStream(), since, future);
+
+        verify(leaveApplicationRepository).streamLeaveUsageUpdated(eq(since),
+                argThat(until -> until.isBefore(LocalDateTime.now().minusSeconds(59))));
+    }
+
+    private String csvOf(LeaveUsageRow row) throws Exception {
+        when(leaveApplicationRepository.streamLeaveUsageUpdated(any(), any())).thenReturn(Stream.of(row));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        reportService.writeLeaveUsageCsv(out, null, null);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private static LeaveUsageRow row(String employeeName, String department) {
+        return new LeaveUsageRow(1L, 2L, employeeName, department, LeaveType.CASUAL,
+                LocalDate.of(2030, 3, 2), LocalDate.of(2030, 3, 4), 3, LeaveStatus.APPROVED, APPLIED_ON, UPDATED_AT);
+    }
+}
@@ -0,0 +1,152 @@
+package com.sap.fsad.leaveApp.util;
+
+import com.sap.fsad.leaveApp.model.Holiday;
+import com.sap.fsad.leaveApp.repository.HolidayRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks the snapshot arithmetic against a day-by-day walk, on both sides of
+ * the window and across its edges.
+ */
+@ExtendWith(MockitoExtension.class)
+class HolidayCalendarTest {
+
+    private static final int YEAR = LocalDate.now().getYear();
+
+    // A weekday, a Saturday and a Monday, all inside the calendar window
+    private static final LocalDate NEW_YEAR = firstWeekday(LocalDate.of(YEAR, 1, 1));
+    private static final LocalDate WEEKEND_HOLIDAY = LocalDate.of(YEAR, 6, 1)
+            .with(TemporalAdjusters.nextOrSame(DayOfWeek.SATURDAY));
+    private static final LocalDate MONDAY_HOLIDAY = LocalDate.of(YEAR - 1, 12, 20)
+            .with(TemporalAdjusters.nextOrSame(DayOfWeek.MONDAY));
+
+    private static final Set<LocalDate> HOLIDAYS = Set.of(NEW_YEAR, WEEKEND_HOLIDAY, MONDAY_HOLIDAY);
+
+    @Mock
+    private HolidayRepository holidayRepository;
+
+    @InjectMocks
+    private HolidayCalendar calendar;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(calendar, "yearsBack", 1);
+        ReflectionTestUtils.setField(calendar, "yearsAhead", 1);
+        when(holidayRepository.findAll()).thenReturn(List.of(
+                holiday("New Year", NEW_YEAR),
+                holiday("Founders Day", NEW_YEAR),
+                holiday("Summer Day", WEEKEND_HOLIDAY),
+                holiday("Winter Day", MONDAY_HOLIDAY)));
+        calendar.rebuild();
+    }
+
+    @Test
+    void knowsHolidaysAndWorkingDays() {
+        assertThat(calendar.isHoliday(NEW_YEAR)).isTrue();
+        assertThat(calendar.isWorkingDay(NEW_YEAR)).isFalse();
+        assertThat(calendar.isWorkingDay(WEEKEND_HOLIDAY.plusDays(1))).isFalse();
+        assertThat(calendar.isWorkingDay(MONDAY_HOLIDAY.plusDays(1))).isTrue();
+        assertThat(calendar.isWorkingDay(LocalDate.of(YEAR + 5, 1, 1)))
+                .isEqualTo(!DateUtil.isWeekend(LocalDate.of(YEAR + 5, 1, 1)));
+    }
+
+    @Test
+    void namesHolidaysInDateOrderAndMergesThoseOnTheSameDay() {
+        assertThat(calendar.getHolidayNamesBetween(MONDAY_HOLIDAY, WEEKEND_HOLIDAY))
+                .containsExactly("Winter Day", "New Year, Founders Day", "Summer Day");
+        assertThat(calendar.getHolidayNamesBetween(WEEKEND_HOLIDAY, MONDAY_HOLIDAY)).isEmpty();
+    }
+
+    @Test
+    void countsWorkingDaysLikeADayByDayWalk() {
+        LocalDate from = LocalDate.of(YEAR - 3, 1, 1);
+        Random random = new Random(42);
+        for (int i = 0; i < 2_000; i++) {
+            LocalDate start = from.plusDays(random.nextInt(365 * 7));
+            LocalDate end = start.plusDays(random.nextInt(800) - 10);
+            assertThat(calendar.countWorkingDays(start, end))
+                    .as("%s to %s", start, end)
+                    .isEqualTo(bruteForceCount(start, end));
+        }
+    }
+
+    @Test
+    void addsWorkingDaysLikeADayByDayWalk() {
+        LocalDate from = LocalDate.of(YEAR - 3, 1, 1);
+        Random random = new Random(7);
+        for (int i = 0; i < 2_000; i++) {
+            LocalDate date = from.plusDays(random.nextInt(365 * 7));
+            int n = 1 + random.nextInt(600);
+            assertThat(calendar.addWorkingDays(date, n))
+                    .as("%d working days after %s", n, date)
+                    .isEqualTo(bruteForceAdd(date, n));
+        }
+    }
+
+    @Test
+    void nextWorkingDaySkipsHolidaysAndWeekends() {
+        assertThat(calendar.getNextWorkingDay(MONDAY_HOLIDAY.minusDays(3))).isEqualTo(MONDAY_HOLIDAY.plusDays(1));
+    }
+
+    @Test
+    void rejectsANonPositiveNumberOfWorkingDays() {
+        assertThatThrownBy(() -> calendar.addWorkingDays(NEW_YEAR, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static int bruteForceCount(LocalDate start, LocalDate end) {
+        int count = 0;
+        for (LocalDate day = start; !day.isAfter(end); day = day.plusDays(1)) {
+            if (isWorkingDay(day)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static LocalDate bruteForceAdd(LocalDate date, int n) {
+        LocalDate day = date;
+        while (n > 0) {
+            day = day.plusDays(1);
+            if (isWorkingDay(day)) {
+                n--;
+            }
+        }
+        return day;
+    }
+
+    private static boolean isWorkingDay(LocalDate day) {
+        return !DateUtil.isWeekend(day) && !HOLIDAYS.contains(day);
+    }
+
+    private static LocalDate firstWeekday(LocalDate date) {
+        while (DateUtil.isWeekend(date)) {
+            date = date.plusDays(1);
+        }
+        return date;
+    }
+
+    private static Holiday holiday(String name, LocalDate date) {
+        Holiday holiday = new Holiday();
+        holiday.setName(name);
+        holiday.setDate(date);
+        return holiday;
+    }
+}